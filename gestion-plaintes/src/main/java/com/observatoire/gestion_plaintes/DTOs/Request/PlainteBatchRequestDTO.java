@@ -0,0 +1,47 @@
+package com.observatoire.gestion_plaintes.DTOs.Request;
+
+import com.observatoire.gestion_plaintes.DTOs.PlainteDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Complaints queued offline on the mobile app and replayed in one request.
+ */
+public class PlainteBatchRequestDTO {
+    private String utilisateurEmail;
+    private List<Item> plaintes = new ArrayList<>();
+
+    public PlainteBatchRequestDTO() {}
+
+    public String getUtilisateurEmail() {
+        return utilisateurEmail;
+    }
+
+    public void setUtilisateurEmail(String utilisateurEmail) {
+        this.utilisateurEmail = utilisateurEmail;
+    }
+
+    public List<Item> getPlaintes() {
+        return plaintes;
+    }
+
+    public void setPlaintes(List<Item> plaintes) {
+        this.plaintes = plaintes;
+    }
+
+    // One queued complaint; the key is generated on the device so a replay never creates a duplicate
+    public static class Item extends PlainteDTO {
+        private String idempotencyKey;
+
+        public Item() {}
+
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+
+        public void setIdempotencyKey(String idempotencyKey) {
+            this.idempotencyKey = idempotencyKey;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.observatoire.gestion_plaintes.DTOs.Response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Page returned by GET /plaintes when count != exact.
+ * Keeps the content/totalElements/totalPages names of Spring's Page so the
+ * dashboard can read it unchanged; totals are omitted for count=none.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageResponseDTO<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private int numberOfElements;
+    private boolean hasNext;
+
+    private Long totalElements;
+    private Integer totalPages;
+    private Boolean totalExact;
+    private String totalLabel;
+    private String countMode;
+
+    public PageResponseDTO() {}
+
+    public static <T> PageResponseDTO<T> of(Slice<T> slice) {
+        PageResponseDTO<T> dto = new PageResponseDTO<>();
+        dto.content = slice.getContent();
+        dto.page = slice.getNumber();
+        dto.size = slice.getSize();
+        dto.numberOfElements = slice.getNumberOfElements();
+        dto.hasNext = slice.hasNext();
+        return dto;
+    }
+
+    public void setTotal(long total, boolean exact, String label) {
+        this.totalElements = total;
+        this.totalPages = size > 0 ? (int) Math.ceil((double) total / size) : 1;
+        this.totalExact = exact;
+        this.totalLabel = label;
+    }
+
+    // Getters and Setters
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getNumberOfElements() {
+        return numberOfElements;
+    }
+
+    public void setNumberOfElements(int numberOfElements) {
+        this.numberOfElements = numberOfElements;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    public Integer getTotalPages() {
+        return totalPages;
+    }
+
+    public Boolean getTotalExact() {
+        return totalExact;
+    }
+
+    public String getTotalLabel() {
+        return totalLabel;
+    }
+
+    public String getCountMode() {
+        return countMode;
+    }
+
+    public void setCountMode(String countMode) {
+        this.countMode = countMode;
+    }
+}
@@ -0,0 +1,33 @@
+package com.observatoire.gestion_plaintes.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * CBOR and Smile encodings of the same payloads as JSON, chosen by the Accept header.
+ * The mappers come from Boot's builder so dates, naming and @Json* annotations
+ * behave exactly like the JSON output. Payload schemas are served under /schemas/.
+ * Endpoints opting in list application/json first in produces, so a client sending
+ * no Accept header or a wildcard still gets JSON.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    // Same classes as the MVC defaults, so Boot swaps them in place and JSON keeps its priority
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -40,6 +40,7 @@ public class SecurityConfig {
                 .requestMatchers("/citoyen/**").permitAll()
                 .requestMatchers("/admin/**").permitAll()
                 .requestMatchers("/utilisateurs/**").permitAll()
+                .requestMatchers("/schemas/**").permitAll()
                 .anyRequest().authenticated()
                 .and()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
@@ -3,41 +3,61 @@ package com.observatoire.gestion_plaintes.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.observatoire.gestion_plaintes.DTOs.PlainteDTO;
+import com.observatoire.gestion_plaintes.DTOs.Request.PlainteBatchRequestDTO;
+import com.observatoire.gestion_plaintes.config.BinaryFormatsConfig;
 import com.observatoire.gestion_plaintes.DTOs.Response.ClassificationResponse;
 import com.observatoire.gestion_plaintes.DTOs.Response.ClassificationResponseDTO;
 import com.observatoire.gestion_plaintes.DTOs.SummaryDTO;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.geo.GeoUtils;
+import com.observatoire.gestion_plaintes.geo.PlainteSpatialIndex;
+import com.observatoire.gestion_plaintes.geo.SpatialFilter;
 import com.observatoire.gestion_plaintes.model.*;
 import com.observatoire.gestion_plaintes.repository.AnalyseIARepository;
 import com.observatoire.gestion_plaintes.repository.CategorieRepository;
+import com.observatoire.gestion_plaintes.repository.PlainteField;
+import com.observatoire.gestion_plaintes.repository.PlainteFilter;
 import com.observatoire.gestion_plaintes.repository.PlainteRepository;
 import com.observatoire.gestion_plaintes.repository.UtilisateurRepository;
 import com.observatoire.gestion_plaintes.service.ClassificationService;
+import com.observatoire.gestion_plaintes.service.CountMode;
 import com.observatoire.gestion_plaintes.service.EnhancedNLPService;
 import com.observatoire.gestion_plaintes.service.GeoCodingService;
+import com.observatoire.gestion_plaintes.service.PlainteBatchService;
+import com.observatoire.gestion_plaintes.service.PlainteLiveFeed;
+import com.observatoire.gestion_plaintes.service.PlainteQueryService;
 import com.observatoire.gestion_plaintes.service.PlainteService;
 import com.observatoire.gestion_plaintes.service.ExpoPushService;
+import com.observatoire.gestion_plaintes.stats.serivce.PlainteWindowCounters;
+import com.observatoire.gestion_plaintes.stats.serivce.ResolutionTimeService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.*;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/plaintes")
@@ -55,6 +75,24 @@ public class PlainteController {
     @Autowired
     private PlainteService plainteService;
 
+    @Autowired
+    private PlainteQueryService plainteQueryService;
+
+    @Autowired
+    private PlainteBatchService plainteBatchService;
+
+    @Autowired
+    private PlainteSpatialIndex plainteSpatialIndex;
+
+    @Autowired
+    private PlainteLiveFeed plainteLiveFeed;
+
+    @Autowired
+    private ResolutionTimeService resolutionTimeService;
+
+    @Autowired
+    private PlainteWindowCounters plainteWindowCounters;
+
     @Autowired
     private CategorieRepository categorieRepo;
 
@@ -80,6 +118,18 @@ public class PlainteController {
     @Value("${nlp.service.url:http://localhost:8000}")
     private String nlpServiceUrl;
 
+    @Value("${plaintes.multiget.max-ids:500}")
+    private int multiGetMaxIds;
+
+    @Value("${plaintes.batch.max-items:100}")
+    private int batchMaxItems;
+
+    @Value("${plaintes.geo.max-limit:1000}")
+    private int geoMaxLimit;
+
+    @Value("${plaintes.geo.max-radius-m:50000}")
+    private double geoMaxRadius;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
 
@@ -131,7 +181,9 @@ public class PlainteController {
                         .body("Catégorie prédite inconnue : " + enhancedResult.getCategorie());
             }
             plainte.setCategorie(cat);
-            plainte.setPriorite(enhancedResult.getPriorite());
+            Integer priorite = classificationService.withLocationBonus(
+                    enhancedResult.getPriorite(), plainteDTO.getLatitude(), plainteDTO.getLongitude());
+            plainte.setPriorite(priorite);
 
             // 6) Stockage de l'analyse IA complète en JSONB
             AnalyseIA analyseIA = new AnalyseIA();
@@ -152,14 +204,14 @@ public class PlainteController {
 
             // 7) Liez la plainte à son AnalyseIA
             plainte.setAnalyseIA(analyseIA);
-            plainteRepo.save(plainte);
+            plainteService.enregistrer(plainte);
 
             // 8) Réponse enrichie
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Plainte enregistrée avec analyse intelligente");
             response.put("zone", zone);
             response.put("categorie", cat.getNom());
-            response.put("priorite", enhancedResult.getPriorite());
+            response.put("priorite", priorite);
             response.put("niveau_urgence", enhancedResult.getNiveauUrgence());
             response.put("confidence_scores", enhancedResult.getScores());
             response.put("plainte_id", plainte.getId());
@@ -177,10 +229,46 @@ public class PlainteController {
     }
 
     /**
-     * EXISTING: Get complaints with filtering (unchanged)
+     * Offline queue replay: up to plaintes.batch.max-items complaints in one request.
+     * Each item carries an idempotencyKey, so replaying the same queue never creates duplicates.
      */
-    @GetMapping
-    public Page<Plainte> getPlaintes(
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> ajouterPlaintesBatch(@RequestBody PlainteBatchRequestDTO request) {
+        List<PlainteBatchRequestDTO.Item> items = request.getPlaintes() != null ? request.getPlaintes() : List.of();
+        if (items.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Aucune plainte fournie"));
+        }
+        if (items.size() > batchMaxItems) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Trop de plaintes dans le lot",
+                    "max_items", batchMaxItems));
+        }
+
+        try {
+            Utilisateur utilisateur = utilisateurRepository.findByEmail(request.getUtilisateurEmail())
+                    .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé"));
+            return ResponseEntity.ok(plainteBatchService.soumettre(utilisateur, items));
+        } catch (UsernameNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error processing complaint batch: {}", e.getMessage(), e);
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur lors du traitement du lot: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Get complaints with filtering.
+     * count = exact (default) | capped | estimate | counters | none
+     * Anything but exact skips the COUNT(*) and returns a PageResponseDTO;
+     * none returns only content + hasNext.
+     * fields = summary | map | full | comma separated list (see PlainteField):
+     * only those columns are selected and a PageResponseDTO of maps is returned.
+     */
+    @GetMapping(produces = {
+            MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormatsConfig.SMILE_VALUE})
+    public ResponseEntity<?> getPlaintes(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "dateSoumission") String sortBy,
@@ -188,37 +276,49 @@ public class PlainteController {
             @RequestParam(required = false) StatutPlainte status,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String commune,
-            @RequestParam(required = false) String query
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String count,
+            @RequestParam(required = false) String fields
     ) {
         Sort.Direction dir = "asc".equalsIgnoreCase(sortDir)
                 ? Sort.Direction.ASC : Sort.Direction.DESC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(dir, sortBy));
 
-        Specification<Plainte> spec = Specification.where(null);
-        if (status != null) spec = spec.and((r, q, cb) ->
-                cb.equal(r.get("statut"), status));
-        if (category != null) spec = spec.and((r, q, cb) ->
-                cb.equal(r.join("categorie").get("nom"), category));
-        if (commune != null) spec = spec.and((r, q, cb) ->
-                cb.equal(r.get("zone"), commune));
-
-        if (query != null && !query.isBlank()) {
-            String pattern = "%" + query.toLowerCase() + "%";
-            spec = spec.and((r, q, cb) -> cb.or(
-                    cb.like(cb.lower(r.get("description")), pattern),
-                    cb.like(cb.lower(r.get("zone")), pattern),
-                    cb.like(cb.lower(r.join("categorie").get("nom")), pattern),
-                    cb.like(cb.lower(r.get("statut")), pattern)
-            ));
+        PlainteFilter filter = new PlainteFilter(status, category, commune, query);
+        CountMode countMode;
+        try {
+            countMode = CountMode.fromParam(count);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", e.getMessage(),
+                    "allowed_counts", CountMode.allowedNames()));
+        }
+
+        if (fields != null && !fields.isBlank()) {
+            List<PlainteField> selected;
+            try {
+                selected = PlainteField.parse(fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", e.getMessage(),
+                        "allowed_fields", PlainteField.allowedNames()));
+            }
+            return ResponseEntity.ok(plainteQueryService.findFieldsPage(filter, selected, pageable, countMode));
         }
 
-        return plainteRepo.findAll(spec, pageable);
+        if (countMode == CountMode.EXACT) {
+            return ResponseEntity.ok(plainteRepo.findAll(filter.toSpecification(), pageable));
+        }
+        return ResponseEntity.ok(plainteQueryService.findPage(filter, pageable, countMode));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deletePlainte(@PathVariable Long id) {
         try {
-            plainteRepo.deleteById(id);
+            if (!plainteService.supprimer(id)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Plainte introuvable", "plainte_id", id));
+            }
             return ResponseEntity.ok(Map.of("message", "Plainte supprimée avec succès", "plainte_id", id));
         } catch (Exception e) {
             logger.error("Erreur lors de la suppression de la plainte: {}", e.getMessage());
@@ -236,14 +336,47 @@ public class PlainteController {
         return ResponseEntity.ok(plaintes);
     }
 
+    /**
+     * Live feed for the admin dashboard (Server-Sent Events), optionally limited to one zone and/or category.
+     */
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> live(@RequestParam(required = false) String zone,
+                                           @RequestParam(required = false) String category) {
+        SseEmitter emitter = plainteLiveFeed.subscribe(
+                zone != null && !zone.isBlank() ? zone : null,
+                category != null && !category.isBlank() ? category : null);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     /**
      * ENHANCED: Get complaint by ID with NLP insights
      */
     /**
      * ENHANCED: Get complaint by ID with full NLP insights
+     * With ?fields=... only those columns are read and no NLP call is made.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getPlainteById(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> getPlainteById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields) {
+        if (fields != null && !fields.isBlank()) {
+            try {
+                Map<String, Object> plainte = plainteQueryService.findFieldsById(id, PlainteField.parse(fields));
+                if (plainte == null) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("error", "Plainte introuvable", "plainte_id", id));
+                }
+                return ResponseEntity.ok(Map.of("plainte", plainte));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", e.getMessage(),
+                        "allowed_fields", PlainteField.allowedNames()));
+            }
+        }
+
         try {
             Plainte plainte = plainteService.getPlainteById(id);
 
@@ -291,6 +424,149 @@ public class PlainteController {
         }
     }
 
+    /**
+     * Status transitions of a complaint, oldest first.
+     */
+    @GetMapping("/{id}/historique")
+    public ResponseEntity<Map<String, Object>> getHistorique(@PathVariable Long id) {
+        List<PlainteStatutHistorique> historique = resolutionTimeService.historique(id);
+        Map<String, Object> response = new HashMap<>();
+        response.put("plainte_id", id);
+        response.put("historique", historique);
+        response.put("count", historique.size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Complaints within radius meters of (lat, lon), nearest first.
+     * Served from the in-memory spatial index; use /plaintes/by-ids for full details.
+     */
+    @GetMapping("/nearby")
+    public ResponseEntity<Map<String, Object>> getPlaintesNearby(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "500") double radius,
+            @RequestParam(required = false) StatutPlainte status,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "100") int limit) {
+
+        if (!GeoUtils.isValid(lat, lon) || radius <= 0 || radius > geoMaxRadius) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Coordonnées ou rayon invalides",
+                    "max_radius_m", geoMaxRadius));
+        }
+        if (!plainteSpatialIndex.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Index spatial en cours de chargement"));
+        }
+
+        int max = Math.max(1, Math.min(limit, geoMaxLimit));
+        PlainteSpatialIndex.Result result = plainteSpatialIndex.nearby(
+                lat, lon, radius, new SpatialFilter(status, category, from, to), max);
+        return ResponseEntity.ok(geoResponse(result));
+    }
+
+    /**
+     * Complaints inside the map viewport, nearest to its center (or to lat/lon when given) first.
+     */
+    @GetMapping("/in-bounds")
+    public ResponseEntity<Map<String, Object>> getPlaintesInBounds(
+            @RequestParam double south,
+            @RequestParam double west,
+            @RequestParam double north,
+            @RequestParam double east,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lon,
+            @RequestParam(required = false) StatutPlainte status,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "500") int limit) {
+
+        if (south > north || west > east || south < -90 || north > 90 || west < -180 || east > 180) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Emprise invalide"));
+        }
+        if (!plainteSpatialIndex.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Index spatial en cours de chargement"));
+        }
+
+        double centerLat = lat != null ? lat : (south + north) / 2;
+        double centerLon = lon != null ? lon : (west + east) / 2;
+        int max = Math.max(1, Math.min(limit, geoMaxLimit));
+        PlainteSpatialIndex.Result result = plainteSpatialIndex.inBounds(
+                south, west, north, east, centerLat, centerLon, new SpatialFilter(status, category, from, to), max);
+        return ResponseEntity.ok(geoResponse(result));
+    }
+
+    private Map<String, Object> geoResponse(PlainteSpatialIndex.Result result) {
+        List<Map<String, Object>> plaintes = new ArrayList<>(result.hits().size());
+        for (PlainteSpatialIndex.Hit hit : result.hits()) {
+            PlainteSnapshot p = hit.plainte();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", p.getId());
+            item.put("latitude", p.getLatitude());
+            item.put("longitude", p.getLongitude());
+            item.put("distance_m", Math.round(hit.distanceMeters()));
+            item.put("categorie", p.getCategorie());
+            item.put("statut", p.getStatut());
+            item.put("priorite", p.getPriorite());
+            item.put("zone", p.getZone());
+            item.put("date_soumission", p.getDateSoumission());
+            plaintes.add(item);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("plaintes", plaintes);
+        response.put("count", plaintes.size());
+        response.put("matched", result.matched());
+        response.put("truncated", result.matched() > plaintes.size());
+        return response;
+    }
+
+    /**
+     * Multi-get: GET /plaintes/by-ids?ids=3,1,2
+     * One IN query, results in the requested order, no NLP calls.
+     */
+    @GetMapping("/by-ids")
+    public ResponseEntity<Map<String, Object>> getPlaintesByIds(@RequestParam List<Long> ids) {
+        return multiGet(ids);
+    }
+
+    /**
+     * Multi-get for id lists too long for a query string: body {"ids": [3, 1, 2]}
+     */
+    @PostMapping("/by-ids")
+    public ResponseEntity<Map<String, Object>> postPlaintesByIds(@RequestBody Map<String, List<Long>> body) {
+        return multiGet(body.get("ids"));
+    }
+
+    private ResponseEntity<Map<String, Object>> multiGet(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Au moins un identifiant est requis"));
+        }
+        List<Long> requested = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (requested.size() > multiGetMaxIds) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Trop d'identifiants demandés",
+                    "max_ids", multiGetMaxIds,
+                    "requested", requested.size()));
+        }
+
+        List<Plainte> plaintes = plainteService.getPlaintesByIds(requested);
+        Set<Long> found = plaintes.stream().map(Plainte::getId).collect(Collectors.toSet());
+        List<Long> missing = requested.stream().filter(id -> !found.contains(id)).toList();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("plaintes", plaintes);
+        response.put("missing_ids", missing);
+        response.put("requested", requested.size());
+        response.put("found", plaintes.size());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * EXISTING: Update complaint status (unchanged)
      */
@@ -421,9 +697,8 @@ public class PlainteController {
                     // Update category if different
                     Categorie newCat = categorieRepo.findByNom(result.getCategorie());
                     if (newCat != null && !newCat.equals(plainte.getCategorie())) {
-                        plainte.setCategorie(newCat);
-                        plainte.setPriorite(result.getPriorite());
-                        plainteRepo.save(plainte);
+                        plainteService.reclassifier(plainte, newCat, classificationService.withLocationBonus(
+                                result.getPriorite(), plainte.getLatitude(), plainte.getLongitude()));
                         updated++;
                     }
 
@@ -457,14 +732,23 @@ public class PlainteController {
             Map<String, Object> status = classificationService.getNLPServiceStatus();
 
             // Add usage statistics
-            LocalDateTime since = LocalDateTime.now().minusHours(24);
-            List<Plainte> recentComplaints = plainteRepo.findRecentComplaints(since);
-
-            status.put("recent_classifications", recentComplaints.size());
-            status.put("categories_processed", recentComplaints.stream()
-                    .map(p -> p.getCategorie() != null ? p.getCategorie().getNom() : "UNKNOWN")
-                    .distinct()
-                    .count());
+            if (plainteWindowCounters.isLoaded()) {
+                List<PlainteWindowCounters.WindowCount> counts = plainteWindowCounters.counts(Duration.ofHours(24), null);
+                status.put("recent_classifications", counts.stream().mapToLong(PlainteWindowCounters.WindowCount::count).sum());
+                status.put("categories_processed", counts.stream()
+                        .map(c -> c.categorie() != null ? c.categorie() : "UNKNOWN")
+                        .distinct()
+                        .count());
+            } else {
+                LocalDateTime since = LocalDateTime.now().minusHours(24);
+                List<Plainte> recentComplaints = plainteRepo.findRecentComplaints(since);
+
+                status.put("recent_classifications", recentComplaints.size());
+                status.put("categories_processed", recentComplaints.stream()
+                        .map(p -> p.getCategorie() != null ? p.getCategorie().getNom() : "UNKNOWN")
+                        .distinct()
+                        .count());
+            }
 
             return ResponseEntity.ok(status);
 
@@ -526,31 +810,45 @@ public class PlainteController {
             List<SummaryDTO> zoneSummaries = enhancedNLPService
                     .generateIntelligentSummaries(hours, zoneName);
 
-            // Get zone statistics
-            LocalDateTime since = LocalDateTime.now().minusHours(hours);
-            List<Plainte> zoneComplaints = plainteRepo.findRecentComplaintsByZone(since, zoneName);
+            // Get zone statistics, from the window counters when they cover the period
+            long totalComplaints;
+            long highPriorityCount;
+            Map<String, Long> categoryDistribution;
+            Duration window = Duration.ofHours(hours);
+            if (plainteWindowCounters.isLoaded() && window.compareTo(plainteWindowCounters.getMaxWindow()) <= 0) {
+                List<PlainteWindowCounters.WindowCount> counts = plainteWindowCounters.counts(window, zoneName);
+                totalComplaints = counts.stream().mapToLong(PlainteWindowCounters.WindowCount::count).sum();
+                highPriorityCount = counts.stream().mapToLong(PlainteWindowCounters.WindowCount::high).sum();
+                categoryDistribution = counts.stream()
+                        .collect(java.util.stream.Collectors.groupingBy(
+                                c -> c.categorie() != null ? c.categorie() : "UNKNOWN",
+                                java.util.stream.Collectors.summingLong(PlainteWindowCounters.WindowCount::count)
+                        ));
+            } else {
+                LocalDateTime since = LocalDateTime.now().minusHours(hours);
+                List<Plainte> zoneComplaints = plainteRepo.findRecentComplaintsByZone(since, zoneName);
+                totalComplaints = zoneComplaints.size();
+                highPriorityCount = zoneComplaints.stream()
+                        .mapToInt(p -> p.getPriorite() != null ? p.getPriorite() : 0)
+                        .filter(p -> p >= 15)
+                        .count();
+                categoryDistribution = zoneComplaints.stream()
+                        .collect(java.util.stream.Collectors.groupingBy(
+                                p -> p.getCategorie() != null ? p.getCategorie().getNom() : "UNKNOWN",
+                                java.util.stream.Collectors.counting()
+                        ));
+            }
 
             Map<String, Object> analysis = new HashMap<>();
             analysis.put("zone_name", zoneName);
             analysis.put("summaries", zoneSummaries);
-            analysis.put("total_complaints", zoneComplaints.size());
+            analysis.put("total_complaints", totalComplaints);
             analysis.put("analysis_period_hours", hours);
             analysis.put("generated_at", LocalDateTime.now());
 
             // Calculate zone-specific metrics
-            long highPriorityCount = zoneComplaints.stream()
-                    .mapToInt(p -> p.getPriorite() != null ? p.getPriorite() : 0)
-                    .filter(p -> p >= 15)
-                    .count();
-
             analysis.put("high_priority_complaints", highPriorityCount);
 
-            Map<String, Long> categoryDistribution = zoneComplaints.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            p -> p.getCategorie() != null ? p.getCategorie().getNom() : "UNKNOWN",
-                            java.util.stream.Collectors.counting()
-                    ));
-
             analysis.put("category_distribution", categoryDistribution);
 
             return ResponseEntity.ok(analysis);
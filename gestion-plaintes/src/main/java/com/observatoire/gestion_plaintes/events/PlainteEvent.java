@@ -0,0 +1,57 @@
+package com.observatoire.gestion_plaintes.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by PlainteService whenever a complaint is written.
+ * previous is null for CREATED, current is null for DELETED.
+ */
+public class PlainteEvent {
+
+    public enum Type {
+        CREATED,
+        STATUS_CHANGED,
+        RECLASSIFIED,
+        DELETED
+    }
+
+    private final Type type;
+    private final PlainteSnapshot previous;
+    private final PlainteSnapshot current;
+    private final LocalDateTime occurredAt;
+
+    public PlainteEvent(Type type, PlainteSnapshot previous, PlainteSnapshot current) {
+        this.type = type;
+        this.previous = previous;
+        this.current = current;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public static PlainteEvent created(PlainteSnapshot current) {
+        return new PlainteEvent(Type.CREATED, null, current);
+    }
+
+    public static PlainteEvent deleted(PlainteSnapshot previous) {
+        return new PlainteEvent(Type.DELETED, previous, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public PlainteSnapshot getPrevious() {
+        return previous;
+    }
+
+    public PlainteSnapshot getCurrent() {
+        return current;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public Long getPlainteId() {
+        return current != null ? current.getId() : previous.getId();
+    }
+}
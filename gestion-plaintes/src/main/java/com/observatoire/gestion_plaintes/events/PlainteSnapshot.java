@@ -0,0 +1,87 @@
+package com.observatoire.gestion_plaintes.events;
+
+import com.observatoire.gestion_plaintes.model.Plainte;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of the fields of a Plainte that the in-memory
+ * aggregates care about. Taken at write time so listeners never touch
+ * a detached entity or trigger lazy loading.
+ */
+public class PlainteSnapshot {
+    private final Long id;
+    private final String zone;
+    private final String categorie;
+    private final StatutPlainte statut;
+    private final Integer priorite;
+    private final LocalDateTime dateSoumission;
+    private final double latitude;
+    private final double longitude;
+    private final Long utilisateurId;
+
+    // Used by JPQL constructor expressions (see PlainteRepository.findAllSnapshots)
+    public PlainteSnapshot(Long id, String zone, String categorie, StatutPlainte statut, Integer priorite,
+                           LocalDateTime dateSoumission, Double latitude, Double longitude, Long utilisateurId) {
+        this.id = id;
+        this.zone = zone;
+        this.categorie = categorie;
+        this.statut = statut;
+        this.priorite = priorite;
+        this.dateSoumission = dateSoumission;
+        this.latitude = latitude != null ? latitude : 0.0;
+        this.longitude = longitude != null ? longitude : 0.0;
+        this.utilisateurId = utilisateurId;
+    }
+
+    public static PlainteSnapshot of(Plainte p) {
+        return new PlainteSnapshot(
+                p.getId(),
+                p.getZone(),
+                p.getCategorie() != null ? p.getCategorie().getNom() : null,
+                p.getStatut(),
+                p.getPriorite(),
+                p.getDateSoumission(),
+                p.getLatitude(),
+                p.getLongitude(),
+                p.getUtilisateur() != null ? p.getUtilisateur().getId() : null
+        );
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public String getCategorie() {
+        return categorie;
+    }
+
+    public StatutPlainte getStatut() {
+        return statut;
+    }
+
+    public Integer getPriorite() {
+        return priorite;
+    }
+
+    public LocalDateTime getDateSoumission() {
+        return dateSoumission;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public Long getUtilisateurId() {
+        return utilisateurId;
+    }
+}
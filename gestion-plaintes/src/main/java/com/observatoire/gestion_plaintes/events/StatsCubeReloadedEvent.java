@@ -0,0 +1,20 @@
+package com.observatoire.gestion_plaintes.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by PlainteStatsCube once a reload from the database has replaced
+ * its contents, so that anything derived from the previous contents is dropped.
+ */
+public class StatsCubeReloadedEvent {
+
+    private final LocalDateTime reloadedAt;
+
+    public StatsCubeReloadedEvent() {
+        this.reloadedAt = LocalDateTime.now();
+    }
+
+    public LocalDateTime getReloadedAt() {
+        return reloadedAt;
+    }
+}
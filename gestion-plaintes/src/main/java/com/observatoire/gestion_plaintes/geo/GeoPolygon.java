@@ -0,0 +1,212 @@
+package com.observatoire.gestion_plaintes.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A GeoJSON Polygon or MultiPolygon in plain lon/lat degrees.
+ * Point tests use the even-odd rule over every ring, so holes are honoured.
+ */
+public class GeoPolygon {
+
+    private static final int MAX_VERTICES = 10_000;
+
+    // Each ring as interleaved [lon0, lat0, lon1, lat1, ...], closed (last point == first)
+    private final List<double[]> rings;
+    private final double south;
+    private final double west;
+    private final double north;
+    private final double east;
+
+    private GeoPolygon(List<double[]> rings) {
+        this.rings = rings;
+        double s = 90, w = 180, n = -90, e = -180;
+        for (double[] ring : rings) {
+            for (int i = 0; i < ring.length; i += 2) {
+                w = Math.min(w, ring[i]);
+                e = Math.max(e, ring[i]);
+                s = Math.min(s, ring[i + 1]);
+                n = Math.max(n, ring[i + 1]);
+            }
+        }
+        this.south = s;
+        this.west = w;
+        this.north = n;
+        this.east = e;
+    }
+
+    /**
+     * Accepts a geometry, a Feature or a FeatureCollection holding one feature.
+     *
+     * @throws IllegalArgumentException when the body is not a usable (Multi)Polygon
+     */
+    @SuppressWarnings("unchecked")
+    public static GeoPolygon fromGeoJson(Map<String, Object> geoJson) {
+        if (geoJson == null) {
+            throw new IllegalArgumentException("GeoJSON manquant");
+        }
+        Object type = geoJson.get("type");
+        if ("FeatureCollection".equals(type)) {
+            List<Map<String, Object>> features = (List<Map<String, Object>>) geoJson.get("features");
+            if (features == null || features.size() != 1) {
+                throw new IllegalArgumentException("Une seule feature attendue");
+            }
+            return fromGeoJson(features.get(0));
+        }
+        if ("Feature".equals(type)) {
+            return fromGeoJson((Map<String, Object>) geoJson.get("geometry"));
+        }
+
+        List<double[]> rings = new ArrayList<>();
+        try {
+            if ("Polygon".equals(type)) {
+                addPolygon(rings, (List<?>) geoJson.get("coordinates"));
+            } else if ("MultiPolygon".equals(type)) {
+                for (Object polygon : (List<?>) geoJson.get("coordinates")) {
+                    addPolygon(rings, (List<?>) polygon);
+                }
+            } else {
+                throw new IllegalArgumentException("Type de géométrie non supporté : " + type);
+            }
+        } catch (ClassCastException | NullPointerException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Coordonnées GeoJSON invalides");
+        }
+        if (rings.isEmpty()) {
+            throw new IllegalArgumentException("Polygone vide");
+        }
+        return new GeoPolygon(rings);
+    }
+
+    private static void addPolygon(List<double[]> rings, List<?> polygon) {
+        int vertices = rings.stream().mapToInt(r -> r.length / 2).sum();
+        for (Object ringObj : polygon) {
+            List<?> ring = (List<?>) ringObj;
+            if (ring.size() < 4) {
+                throw new IllegalArgumentException("Un anneau doit avoir au moins 4 positions");
+            }
+            vertices += ring.size();
+            if (vertices > MAX_VERTICES) {
+                throw new IllegalArgumentException("Polygone trop complexe (" + MAX_VERTICES + " sommets max)");
+            }
+            // One extra slot in case the ring is not closed
+            double[] coords = new double[ring.size() * 2 + 2];
+            for (int i = 0; i < ring.size(); i++) {
+                List<?> position = (List<?>) ring.get(i);
+                double lon = ((Number) position.get(0)).doubleValue();
+                double lat = ((Number) position.get(1)).doubleValue();
+                if (!(lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180)) {
+                    throw new IllegalArgumentException("Position hors limites");
+                }
+                coords[2 * i] = lon;
+                coords[2 * i + 1] = lat;
+            }
+            int last = ring.size() - 1;
+            boolean closed = coords[0] == coords[2 * last] && coords[1] == coords[2 * last + 1];
+            if (closed) {
+                coords = Arrays.copyOf(coords, ring.size() * 2);
+            } else {
+                coords[2 * ring.size()] = coords[0];
+                coords[2 * ring.size() + 1] = coords[1];
+            }
+            rings.add(coords);
+        }
+    }
+
+    public boolean contains(double lat, double lon) {
+        if (lat < south || lat > north || lon < west || lon > east) {
+            return false;
+        }
+        boolean inside = false;
+        for (double[] ring : rings) {
+            for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                double xi = ring[i], yi = ring[i + 1];
+                double xj = ring[j], yj = ring[j + 1];
+                if ((yi > lat) != (yj > lat) && lon < (xj - xi) * (lat - yi) / (yj - yi) + xi) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Keys of the grid cells (GeoUtils.cellKey) crossed by at least one polygon edge.
+     * Any other cell is either fully inside or fully outside.
+     * Each edge is walked cell by cell, so the cost is the number of cells it crosses.
+     */
+    public Set<Long> boundaryCells(double cellDegrees) {
+        Set<Long> boundary = new HashSet<>();
+        for (double[] ring : rings) {
+            for (int i = 0; i + 3 < ring.length; i += 2) {
+                walkEdge(ring[i], ring[i + 1], ring[i + 2], ring[i + 3], cellDegrees, boundary);
+            }
+        }
+        return boundary;
+    }
+
+    /**
+     * Number of grid cells of the bounding box, i.e. what an aggregation may have to visit.
+     */
+    public long bboxCells(double cellDegrees) {
+        long rows = GeoUtils.row(north, cellDegrees) - GeoUtils.row(south, cellDegrees) + 1L;
+        long cols = GeoUtils.col(east, cellDegrees) - GeoUtils.col(west, cellDegrees) + 1L;
+        return rows * cols;
+    }
+
+    public double getSouth() {
+        return south;
+    }
+
+    public double getWest() {
+        return west;
+    }
+
+    public double getNorth() {
+        return north;
+    }
+
+    public double getEast() {
+        return east;
+    }
+
+    // Grid traversal (Amanatides-Woo): from the cell of (x1, y1), step into the next column or row,
+    // whichever line the edge crosses first, until the cell of (x2, y2)
+    private static void walkEdge(double x1, double y1, double x2, double y2, double cellDegrees, Set<Long> cells) {
+        int row = GeoUtils.row(y1, cellDegrees), col = GeoUtils.col(x1, cellDegrees);
+        int endRow = GeoUtils.row(y2, cellDegrees), endCol = GeoUtils.col(x2, cellDegrees);
+        int stepRow = Integer.signum(endRow - row), stepCol = Integer.signum(endCol - col);
+        double dx = x2 - x1, dy = y2 - y1;
+
+        // Edge parameter t in [0, 1] at the next row / column line, and between two lines
+        double tNextCol = stepCol == 0 ? Double.POSITIVE_INFINITY
+                : ((col + (stepCol > 0 ? 1 : 0)) * cellDegrees - 180.0 - x1) / dx;
+        double tNextRow = stepRow == 0 ? Double.POSITIVE_INFINITY
+                : ((row + (stepRow > 0 ? 1 : 0)) * cellDegrees - 90.0 - y1) / dy;
+        double tDeltaCol = stepCol == 0 ? 0 : cellDegrees / Math.abs(dx);
+        double tDeltaRow = stepRow == 0 ? 0 : cellDegrees / Math.abs(dy);
+
+        cells.add(GeoUtils.cellKey(row, col));
+        while (row != endRow || col != endCol) {
+            if (row != endRow && col != endCol && tNextCol == tNextRow) {
+                // Through a corner: the two cells beside it are touched as well
+                cells.add(GeoUtils.cellKey(row, col + stepCol));
+                cells.add(GeoUtils.cellKey(row + stepRow, col));
+                row += stepRow;
+                col += stepCol;
+                tNextRow += tDeltaRow;
+                tNextCol += tDeltaCol;
+            } else if (row == endRow || (col != endCol && tNextCol < tNextRow)) {
+                col += stepCol;
+                tNextCol += tDeltaCol;
+            } else {
+                row += stepRow;
+                tNextRow += tDeltaRow;
+            }
+            cells.add(GeoUtils.cellKey(row, col));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.observatoire.gestion_plaintes.geo;
+
+/**
+ * Small spherical-earth helpers shared by the spatial indexes.
+ * Distances are haversine on a 6371 km sphere, accurate to well under 1%
+ * at city scale, which is all the map and stats endpoints need.
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_M = 6_371_000.0;
+    public static final double METERS_PER_DEGREE_LAT = Math.PI * EARTH_RADIUS_M / 180.0;
+
+    private GeoUtils() {}
+
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    public static double metersToLatDegrees(double meters) {
+        return meters / METERS_PER_DEGREE_LAT;
+    }
+
+    public static double metersToLonDegrees(double meters, double atLatitude) {
+        double cos = Math.cos(Math.toRadians(atLatitude));
+        return cos < 1e-6 ? 360.0 : meters / (METERS_PER_DEGREE_LAT * cos);
+    }
+
+    public static boolean isValid(double lat, double lon) {
+        return !Double.isNaN(lat) && !Double.isNaN(lon)
+                && lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180
+                // Complaints saved without coordinates end up at (0, 0)
+                && !(lat == 0.0 && lon == 0.0);
+    }
+
+    /**
+     * Packs a grid (row, col) into one long, row in the high 32 bits.
+     */
+    public static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    public static int cellRow(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int cellCol(long key) {
+        return (int) key;
+    }
+
+    /** Row of a latitude on a grid of the given cell size, counted from -90 */
+    public static int row(double lat, double cellDegrees) {
+        return (int) Math.floor((lat + 90.0) / cellDegrees);
+    }
+
+    /** Column of a longitude on a grid of the given cell size, counted from -180 */
+    public static int col(double lon, double cellDegrees) {
+        return (int) Math.floor((lon + 180.0) / cellDegrees);
+    }
+}
@@ -0,0 +1,210 @@
+package com.observatoire.gestion_plaintes.geo;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-aggregated map clusters for every zoom level, supercluster style.
+ * At zoom z the Web Mercator world is 256 * 2^z pixels wide and is cut into
+ * square cells of radius pixels; a cell at z + 1 always nests inside one
+ * cell at z, so the levels form a quadtree. Each complaint is added to (or
+ * removed from) one cell per level as it is written, and a viewport query
+ * only reads the cells of the requested zoom.
+ */
+@Component
+public class PlainteClusterIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteClusterIndex.class);
+
+    private static final double MAX_MERCATOR_LAT = 85.05112878;
+    private static final int MAX_PRIORITY = 100;
+
+    private final PlainteRepository plainteRepository;
+    private final int maxZoom;
+    private final int radiusPixels;
+
+    private final List<Map<Long, Cluster>> levels;
+    private volatile boolean loaded = false;
+
+    public PlainteClusterIndex(PlainteRepository plainteRepository,
+                               @Value("${geo.clusters.max-zoom:16}") int maxZoom,
+                               @Value("${geo.clusters.radius-px:64}") int radiusPixels) {
+        this.plainteRepository = plainteRepository;
+        this.maxZoom = maxZoom;
+        this.radiusPixels = radiusPixels;
+        this.levels = new ArrayList<>(maxZoom + 1);
+        for (int z = 0; z <= maxZoom; z++) {
+            levels.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Running aggregate of the complaints falling in one cell.
+     */
+    public static class Cluster {
+        private int count;
+        private double sumLat;
+        private double sumLon;
+        // Only meaningful while count == 1: the id of the single complaint
+        private long sumIds;
+        private final Map<String, Integer> categories = new HashMap<>(4);
+        private final int[] priorities = new int[MAX_PRIORITY + 1];
+
+        synchronized void add(PlainteSnapshot p, int delta) {
+            count += delta;
+            sumLat += delta * p.getLatitude();
+            sumLon += delta * p.getLongitude();
+            sumIds += delta * p.getId();
+            categories.merge(p.getCategorie() != null ? p.getCategorie() : "AUTRES", delta,
+                    (a, b) -> a + b == 0 ? null : a + b);
+            priorities[priorityBucket(p.getPriorite())] += delta;
+        }
+
+        synchronized int getCount() {
+            return count;
+        }
+
+        synchronized Map<String, Object> toMap() {
+            Map<String, Object> m = new HashMap<>();
+            m.put("latitude", sumLat / count);
+            m.put("longitude", sumLon / count);
+            m.put("count", count);
+            m.put("dominant_categorie", categories.entrySet().stream()
+                    .max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null));
+            int max = MAX_PRIORITY;
+            while (max > 0 && priorities[max] == 0) max--;
+            m.put("max_priorite", max);
+            if (count == 1) {
+                m.put("plainte_id", sumIds);
+            }
+            return m;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        try {
+            levels.forEach(Map::clear);
+            int indexed = 0;
+            for (PlainteSnapshot p : plainteRepository.findAllSnapshots()) {
+                if (apply(p, 1)) indexed++;
+            }
+            loaded = true;
+            logger.info("Cluster index loaded: {} complaints, {} cells at zoom {}",
+                    indexed, levels.get(maxZoom).size(), maxZoom);
+        } catch (Exception e) {
+            logger.error("Unable to load cluster index: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPlainteEvent(PlainteEvent event) {
+        if (event.getPrevious() != null) {
+            apply(event.getPrevious(), -1);
+        }
+        if (event.getCurrent() != null) {
+            apply(event.getCurrent(), 1);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Clusters of the given zoom whose cell overlaps the viewport.
+     * Zooms past maxZoom read the finest level.
+     */
+    public List<Map<String, Object>> clusters(int zoom, double south, double west, double north, double east) {
+        int z = Math.max(0, Math.min(zoom, maxZoom));
+        Map<Long, Cluster> level = levels.get(z);
+
+        int minCol = cellX(west, z);
+        int maxCol = cellX(east, z);
+        int minRow = cellY(north, z);
+        int maxRow = cellY(south, z);
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        long rangeSize = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (rangeSize > level.size()) {
+            for (Map.Entry<Long, Cluster> e : level.entrySet()) {
+                int row = GeoUtils.cellRow(e.getKey());
+                int col = GeoUtils.cellCol(e.getKey());
+                if (row >= minRow && row <= maxRow && col >= minCol && col <= maxCol) {
+                    addCluster(result, e.getValue());
+                }
+            }
+        } else {
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    Cluster c = level.get(GeoUtils.cellKey(row, col));
+                    if (c != null) {
+                        addCluster(result, c);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addCluster(List<Map<String, Object>> result, Cluster c) {
+        if (c.getCount() > 0) {
+            result.add(c.toMap());
+        }
+    }
+
+    private boolean apply(PlainteSnapshot p, int delta) {
+        if (!GeoUtils.isValid(p.getLatitude(), p.getLongitude())) {
+            return false;
+        }
+        for (int z = 0; z <= maxZoom; z++) {
+            long key = GeoUtils.cellKey(cellY(p.getLatitude(), z), cellX(p.getLongitude(), z));
+            Map<Long, Cluster> level = levels.get(z);
+            Cluster c = level.computeIfAbsent(key, k -> new Cluster());
+            c.add(p, delta);
+            if (c.getCount() <= 0) {
+                level.remove(key);
+            }
+        }
+        return true;
+    }
+
+    private int cellX(double lon, int zoom) {
+        double x = (lon + 180.0) / 360.0;
+        return (int) Math.floor(x * worldPixels(zoom) / radiusPixels);
+    }
+
+    private int cellY(double lat, int zoom) {
+        double clamped = Math.max(-MAX_MERCATOR_LAT, Math.min(MAX_MERCATOR_LAT, lat));
+        double sin = Math.sin(Math.toRadians(clamped));
+        double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+        return (int) Math.floor(y * worldPixels(zoom) / radiusPixels);
+    }
+
+    private static double worldPixels(int zoom) {
+        return 256.0 * (1L << zoom);
+    }
+
+    private static int priorityBucket(Integer priorite) {
+        if (priorite == null) return 0;
+        return Math.max(0, Math.min(MAX_PRIORITY, priorite));
+    }
+}
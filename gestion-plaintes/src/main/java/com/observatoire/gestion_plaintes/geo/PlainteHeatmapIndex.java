@@ -0,0 +1,152 @@
+package com.observatoire.gestion_plaintes.geo;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Complaint counts per day, per square grid cell, per category and status,
+ * at several nested resolutions. Resolution r uses cells of
+ * baseCellDegrees / 2^r, so each cell splits into four at r + 1.
+ * A date range is answered by summing the day slices it covers.
+ */
+@Component
+public class PlainteHeatmapIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteHeatmapIndex.class);
+
+    private static final int STATUSES = StatutPlainte.values().length;
+
+    private final PlainteRepository plainteRepository;
+    private final double baseCellDegrees;
+    private final int resolutions;
+
+    // day -> resolution -> cell -> category -> count per status ordinal
+    private final Map<LocalDate, Map<Long, Map<String, AtomicLongArray>>[]> days = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    public PlainteHeatmapIndex(PlainteRepository plainteRepository,
+                               @Value("${geo.heatmap.base-cell-degrees:0.04}") double baseCellDegrees,
+                               @Value("${geo.heatmap.resolutions:4}") int resolutions) {
+        this.plainteRepository = plainteRepository;
+        this.baseCellDegrees = baseCellDegrees;
+        this.resolutions = resolutions;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        try {
+            days.clear();
+            for (PlainteSnapshot p : plainteRepository.findAllSnapshots()) {
+                apply(p, 1);
+            }
+            loaded = true;
+            logger.info("Heatmap index loaded: {} days, {} resolutions", days.size(), resolutions);
+        } catch (Exception e) {
+            logger.error("Unable to load heatmap index: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPlainteEvent(PlainteEvent event) {
+        if (event.getPrevious() != null) {
+            apply(event.getPrevious(), -1);
+        }
+        if (event.getCurrent() != null) {
+            apply(event.getCurrent(), 1);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int getResolutions() {
+        return resolutions;
+    }
+
+    public double cellDegrees(int resolution) {
+        return baseCellDegrees / (1 << resolution);
+    }
+
+    /**
+     * Count per cell key over [from, to], optionally restricted to a category, a status
+     * and a bounding box (null for the whole map).
+     */
+    public Map<Long, Long> counts(int resolution, LocalDate from, LocalDate to, String category,
+                                  StatutPlainte status, double[] bbox) {
+        double cell = cellDegrees(resolution);
+        int minRow = 0, maxRow = Integer.MAX_VALUE, minCol = 0, maxCol = Integer.MAX_VALUE;
+        if (bbox != null) {
+            minRow = GeoUtils.row(bbox[0], cell);
+            minCol = GeoUtils.col(bbox[1], cell);
+            maxRow = GeoUtils.row(bbox[2], cell);
+            maxCol = GeoUtils.col(bbox[3], cell);
+        }
+
+        Map<Long, Long> totals = new HashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Map<Long, Map<String, AtomicLongArray>>[] slice = days.get(day);
+            if (slice == null) continue;
+
+            for (Map.Entry<Long, Map<String, AtomicLongArray>> e : slice[resolution].entrySet()) {
+                int row = GeoUtils.cellRow(e.getKey());
+                int col = GeoUtils.cellCol(e.getKey());
+                if (row < minRow || row > maxRow || col < minCol || col > maxCol) continue;
+
+                long n = 0;
+                for (Map.Entry<String, AtomicLongArray> byCategory : e.getValue().entrySet()) {
+                    if (category != null && !category.equals(byCategory.getKey())) continue;
+                    AtomicLongArray byStatus = byCategory.getValue();
+                    if (status != null) {
+                        n += byStatus.get(status.ordinal());
+                    } else {
+                        for (int s = 0; s < STATUSES; s++) n += byStatus.get(s);
+                    }
+                }
+                if (n > 0) {
+                    totals.merge(e.getKey(), n, Long::sum);
+                }
+            }
+        }
+        return totals;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(PlainteSnapshot p, int delta) {
+        if (p.getDateSoumission() == null || p.getStatut() == null
+                || !GeoUtils.isValid(p.getLatitude(), p.getLongitude())) {
+            return;
+        }
+        Map<Long, Map<String, AtomicLongArray>>[] slice = days.computeIfAbsent(
+                p.getDateSoumission().toLocalDate(), d -> {
+                    Map<Long, Map<String, AtomicLongArray>>[] levels = new Map[resolutions];
+                    for (int r = 0; r < resolutions; r++) {
+                        levels[r] = new ConcurrentHashMap<>();
+                    }
+                    return levels;
+                });
+        String category = p.getCategorie() != null ? p.getCategorie() : "AUTRES";
+        for (int r = 0; r < resolutions; r++) {
+            double cell = cellDegrees(r);
+            long key = GeoUtils.cellKey(GeoUtils.row(p.getLatitude(), cell), GeoUtils.col(p.getLongitude(), cell));
+            slice[r].computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(category, c -> new AtomicLongArray(STATUSES))
+                    .addAndGet(p.getStatut().ordinal(), delta);
+        }
+    }
+}
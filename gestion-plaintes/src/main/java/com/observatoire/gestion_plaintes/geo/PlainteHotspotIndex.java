@@ -0,0 +1,272 @@
+package com.observatoire.gestion_plaintes.geo;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sliding-window complaint counts per fine grid cell and category, used to
+ * find where reports are concentrating right now. Each cell keeps a ring of
+ * time slots covering the window; a write touches one slot of one cell and
+ * old slots are overwritten as time moves on. Hot cells (at least
+ * minCellCount reports in the window) that touch, diagonals included, are
+ * merged into one hotspot in a single pass over the active cells.
+ * Only the complaints of the window are read at startup, and cells whose
+ * slots have all expired are swept every slot.
+ */
+@Component
+public class PlainteHotspotIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteHotspotIndex.class);
+
+    private final PlainteRepository plainteRepository;
+    private final double cellDegrees;
+    private final int windowHours;
+    private final int slotMinutes;
+    private final int slots;
+
+    // Only cells with a report in the current window; emptied cells are dropped on read and by sweep()
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private volatile boolean loaded = false;
+
+    public PlainteHotspotIndex(PlainteRepository plainteRepository,
+                               @Value("${geo.hotspots.cell-degrees:0.0027}") double cellDegrees,
+                               @Value("${geo.hotspots.window-hours:6}") int windowHours,
+                               @Value("${geo.hotspots.slot-minutes:15}") int slotMinutes) {
+        this.plainteRepository = plainteRepository;
+        this.cellDegrees = cellDegrees;
+        this.windowHours = windowHours;
+        this.slotMinutes = slotMinutes;
+        this.slots = Math.max(1, windowHours * 60 / slotMinutes);
+    }
+
+    /**
+     * Per-category counts for each time slot of the window, as a ring indexed by slot % slots.
+     */
+    private final class Cell {
+        private final long[] slotIds = new long[slots];
+        private final Map<String, int[]> byCategory = new HashMap<>(4);
+
+        Cell() {
+            Arrays.fill(slotIds, Long.MIN_VALUE);
+        }
+
+        void add(long slot, String category, int delta) {
+            int i = (int) Math.floorMod(slot, (long) slots);
+            if (slotIds[i] != slot) {
+                if (slotIds[i] > slot) {
+                    return; // already overwritten by a newer slot
+                }
+                slotIds[i] = slot;
+                for (int[] counts : byCategory.values()) {
+                    counts[i] = 0;
+                }
+            }
+            int[] counts = byCategory.computeIfAbsent(category, c -> new int[slots]);
+            counts[i] = Math.max(0, counts[i] + delta);
+        }
+
+        long count(long now, String category) {
+            long n = 0;
+            for (Map.Entry<String, int[]> e : byCategory.entrySet()) {
+                if (category == null || category.equals(e.getKey())) {
+                    n += windowSum(e.getValue(), now);
+                }
+            }
+            return n;
+        }
+
+        void mergeInto(Map<String, Long> totals, long now, String category) {
+            for (Map.Entry<String, int[]> e : byCategory.entrySet()) {
+                if (category != null && !category.equals(e.getKey())) continue;
+                long n = windowSum(e.getValue(), now);
+                if (n > 0) {
+                    totals.merge(e.getKey(), n, Long::sum);
+                }
+            }
+        }
+
+        private long windowSum(int[] counts, long now) {
+            long n = 0;
+            for (int i = 0; i < slots; i++) {
+                if (slotIds[i] > now - slots && slotIds[i] <= now) {
+                    n += counts[i];
+                }
+            }
+            return n;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        try {
+            cells.clear();
+            int indexed = 0;
+            LocalDateTime since = LocalDateTime.now().minusMinutes((long) slots * slotMinutes);
+            for (PlainteSnapshot p : plainteRepository.findSnapshotsSince(since)) {
+                if (apply(p, 1)) indexed++;
+            }
+            loaded = true;
+            logger.info("Hotspot index loaded: {} complaints in the last {} h, {} cells",
+                    indexed, windowHours, cells.size());
+        } catch (Exception e) {
+            logger.error("Unable to load hotspot index: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPlainteEvent(PlainteEvent event) {
+        if (event.getPrevious() != null) {
+            apply(event.getPrevious(), -1);
+        }
+        if (event.getCurrent() != null) {
+            apply(event.getCurrent(), 1);
+        }
+    }
+
+    /**
+     * Drops the cells without any report left in the window.
+     */
+    @Scheduled(fixedDelayString = "${geo.hotspots.slot-minutes:15}", timeUnit = TimeUnit.MINUTES)
+    public synchronized void sweep() {
+        long now = slot(LocalDateTime.now());
+        cells.values().removeIf(cell -> cell.count(now, null) == 0);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int getWindowHours() {
+        return windowHours;
+    }
+
+    public double getCellDegrees() {
+        return cellDegrees;
+    }
+
+    /**
+     * Current hotspots, largest first: groups of adjacent cells each holding at least
+     * minCellCount reports in the window, kept when the group totals minCount or more.
+     * category restricts the counts to one category (null for all).
+     */
+    public synchronized List<Map<String, Object>> hotspots(String category, int minCellCount, int minCount) {
+        long now = slot(LocalDateTime.now());
+
+        Map<Long, Long> hot = new HashMap<>();
+        for (Iterator<Map.Entry<Long, Cell>> it = cells.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Cell> e = it.next();
+            if (e.getValue().count(now, null) == 0) {
+                it.remove();
+                continue;
+            }
+            long n = e.getValue().count(now, category);
+            if (n >= minCellCount) {
+                hot.put(e.getKey(), n);
+            }
+        }
+
+        List<Map<String, Object>> hotspots = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        ArrayDeque<Long> queue = new ArrayDeque<>();
+        for (Long start : hot.keySet()) {
+            if (!visited.add(start)) continue;
+
+            long total = 0, peak = 0;
+            double sumLat = 0, sumLon = 0;
+            int minRow = Integer.MAX_VALUE, maxRow = Integer.MIN_VALUE;
+            int minCol = Integer.MAX_VALUE, maxCol = Integer.MIN_VALUE;
+            Map<String, Long> byCategorie = new TreeMap<>();
+            int regionCells = 0;
+
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                long key = queue.poll();
+                long n = hot.get(key);
+                int row = GeoUtils.cellRow(key);
+                int col = GeoUtils.cellCol(key);
+                regionCells++;
+                total += n;
+                peak = Math.max(peak, n);
+                sumLat += n * ((row + 0.5) * cellDegrees - 90.0);
+                sumLon += n * ((col + 0.5) * cellDegrees - 180.0);
+                minRow = Math.min(minRow, row);
+                maxRow = Math.max(maxRow, row);
+                minCol = Math.min(minCol, col);
+                maxCol = Math.max(maxCol, col);
+                cells.get(key).mergeInto(byCategorie, now, category);
+
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        long neighbour = GeoUtils.cellKey(row + dr, col + dc);
+                        if (hot.containsKey(neighbour) && visited.add(neighbour)) {
+                            queue.add(neighbour);
+                        }
+                    }
+                }
+            }
+            if (total < minCount) continue;
+
+            Map<String, Object> hotspot = new HashMap<>();
+            hotspot.put("latitude", sumLat / total);
+            hotspot.put("longitude", sumLon / total);
+            hotspot.put("count", total);
+            hotspot.put("cells", regionCells);
+            hotspot.put("max_cell_count", peak);
+            hotspot.put("south", minRow * cellDegrees - 90.0);
+            hotspot.put("west", minCol * cellDegrees - 180.0);
+            hotspot.put("north", (maxRow + 1) * cellDegrees - 90.0);
+            hotspot.put("east", (maxCol + 1) * cellDegrees - 180.0);
+            hotspot.put("by_categorie", byCategorie);
+            hotspots.add(hotspot);
+        }
+        hotspots.sort((a, b) -> Long.compare((Long) b.get("count"), (Long) a.get("count")));
+        return hotspots;
+    }
+
+    private boolean apply(PlainteSnapshot p, int delta) {
+        if (p.getDateSoumission() == null || !GeoUtils.isValid(p.getLatitude(), p.getLongitude())) {
+            return false;
+        }
+        long slot = slot(p.getDateSoumission());
+        long now = slot(LocalDateTime.now());
+        if (slot <= now - slots || slot > now) {
+            return false;
+        }
+        long key = GeoUtils.cellKey(GeoUtils.row(p.getLatitude(), cellDegrees), GeoUtils.col(p.getLongitude(), cellDegrees));
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            if (delta < 0) return false;
+            cell = new Cell();
+            cells.put(key, cell);
+        }
+        cell.add(slot, p.getCategorie() != null ? p.getCategorie() : "AUTRES", delta);
+        return true;
+    }
+
+    private long slot(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60 / slotMinutes;
+    }
+}
@@ -0,0 +1,209 @@
+package com.observatoire.gestion_plaintes.geo;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * In-memory uniform grid over complaint coordinates, loaded at startup and
+ * kept in sync from PlainteEvents. A radius or viewport lookup only visits
+ * the cells it overlaps instead of scanning every complaint.
+ */
+@Component
+public class PlainteSpatialIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteSpatialIndex.class);
+
+    public record Hit(PlainteSnapshot plainte, double distanceMeters) {}
+
+    /** Up to limit hits, nearest first, and how many complaints matched in total */
+    public record Result(List<Hit> hits, int matched) {}
+
+    private final PlainteRepository plainteRepository;
+    private final double cellDegrees;
+
+    private final Map<Long, Map<Long, PlainteSnapshot>> cells = new ConcurrentHashMap<>();
+    private final Map<Long, PlainteSnapshot> byId = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    public PlainteSpatialIndex(PlainteRepository plainteRepository,
+                               @Value("${geo.index.cell-degrees:0.005}") double cellDegrees) {
+        this.plainteRepository = plainteRepository;
+        this.cellDegrees = cellDegrees;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        try {
+            cells.clear();
+            byId.clear();
+            for (PlainteSnapshot p : plainteRepository.findAllSnapshots()) {
+                put(p);
+            }
+            loaded = true;
+            logger.info("Spatial index loaded: {} complaints in {} cells", byId.size(), cells.size());
+        } catch (Exception e) {
+            logger.error("Unable to load spatial index: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlainteEvent(PlainteEvent event) {
+        if (event.getCurrent() != null) {
+            put(event.getCurrent());
+        } else {
+            remove(event.getPlainteId());
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Complaints within radiusMeters of (lat, lon), nearest first.
+     */
+    public Result nearby(double lat, double lon, double radiusMeters, SpatialFilter filter, int limit) {
+        double dLat = GeoUtils.metersToLatDegrees(radiusMeters);
+        double dLon = GeoUtils.metersToLonDegrees(radiusMeters, lat);
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(
+                Comparator.comparingDouble(Hit::distanceMeters).reversed());
+        int[] matched = {0};
+        forEachCell(lat - dLat, lon - dLon, lat + dLat, lon + dLon, cell -> {
+            for (PlainteSnapshot p : cell.values()) {
+                if (!filter.matches(p)) continue;
+                double d = GeoUtils.distanceMeters(lat, lon, p.getLatitude(), p.getLongitude());
+                if (d <= radiusMeters) {
+                    matched[0]++;
+                    offer(best, new Hit(p, d), limit);
+                }
+            }
+        });
+        return new Result(sorted(best), matched[0]);
+    }
+
+    /**
+     * Complaints inside the viewport, nearest to (centerLat, centerLon) first.
+     */
+    public Result inBounds(double south, double west, double north, double east,
+                           double centerLat, double centerLon, SpatialFilter filter, int limit) {
+        PriorityQueue<Hit> best = new PriorityQueue<>(
+                Comparator.comparingDouble(Hit::distanceMeters).reversed());
+        int[] matched = {0};
+        forEachCell(south, west, north, east, cell -> {
+            for (PlainteSnapshot p : cell.values()) {
+                double lat = p.getLatitude();
+                double lon = p.getLongitude();
+                if (lat < south || lat > north || lon < west || lon > east) continue;
+                if (!filter.matches(p)) continue;
+                matched[0]++;
+                offer(best, new Hit(p, GeoUtils.distanceMeters(centerLat, centerLon, lat, lon)), limit);
+            }
+        });
+        return new Result(sorted(best), matched[0]);
+    }
+
+    /**
+     * Visits every non-empty cell overlapping the box. Large boxes walk the
+     * populated cells instead of every (row, col) pair in range.
+     */
+    public void forEachCell(double south, double west, double north, double east,
+                            Consumer<Map<Long, PlainteSnapshot>> visitor) {
+        forEachCell(south, west, north, east, (key, cell) -> visitor.accept(cell));
+    }
+
+    /**
+     * Same as forEachCell, also passing the cell key (see GeoUtils.cellKey).
+     */
+    public void forEachCell(double south, double west, double north, double east,
+                            BiConsumer<Long, Map<Long, PlainteSnapshot>> visitor) {
+        int minRow = GeoUtils.row(south, cellDegrees);
+        int maxRow = GeoUtils.row(north, cellDegrees);
+        int minCol = GeoUtils.col(west, cellDegrees);
+        int maxCol = GeoUtils.col(east, cellDegrees);
+
+        long rangeSize = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (rangeSize > cells.size()) {
+            for (Map.Entry<Long, Map<Long, PlainteSnapshot>> e : cells.entrySet()) {
+                int row = GeoUtils.cellRow(e.getKey());
+                int col = GeoUtils.cellCol(e.getKey());
+                if (row >= minRow && row <= maxRow && col >= minCol && col <= maxCol) {
+                    visitor.accept(e.getKey(), e.getValue());
+                }
+            }
+            return;
+        }
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                long key = GeoUtils.cellKey(row, col);
+                Map<Long, PlainteSnapshot> cell = cells.get(key);
+                if (cell != null) {
+                    visitor.accept(key, cell);
+                }
+            }
+        }
+    }
+
+    public double getCellDegrees() {
+        return cellDegrees;
+    }
+
+    // Writes are serialized so an emptied cell is never dropped while another write fills it
+    private synchronized void put(PlainteSnapshot p) {
+        remove(p.getId());
+        if (!GeoUtils.isValid(p.getLatitude(), p.getLongitude())) {
+            return;
+        }
+        long key = GeoUtils.cellKey(GeoUtils.row(p.getLatitude(), cellDegrees), GeoUtils.col(p.getLongitude(), cellDegrees));
+        cells.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(p.getId(), p);
+        byId.put(p.getId(), p);
+    }
+
+    private synchronized void remove(Long id) {
+        PlainteSnapshot old = byId.remove(id);
+        if (old == null) {
+            return;
+        }
+        long key = GeoUtils.cellKey(GeoUtils.row(old.getLatitude(), cellDegrees), GeoUtils.col(old.getLongitude(), cellDegrees));
+        cells.computeIfPresent(key, (k, cell) -> {
+            cell.remove(id);
+            return cell.isEmpty() ? null : cell;
+        });
+    }
+
+    private static void offer(PriorityQueue<Hit> best, Hit hit, int limit) {
+        if (best.size() < limit) {
+            best.add(hit);
+        } else if (hit.distanceMeters() < best.peek().distanceMeters()) {
+            best.poll();
+            best.add(hit);
+        }
+    }
+
+    private static List<Hit> sorted(PriorityQueue<Hit> best) {
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(Hit::distanceMeters));
+        return hits;
+    }
+}
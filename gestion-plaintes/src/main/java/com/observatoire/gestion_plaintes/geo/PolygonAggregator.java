@@ -0,0 +1,94 @@
+package com.observatoire.gestion_plaintes.geo;
+
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Category / status / priority aggregates of the complaints inside a polygon.
+ * Candidates come from the spatial index grid: a cell crossed by the polygon
+ * outline gets an exact point-in-polygon test per complaint, any other cell
+ * is wholly in or out and is decided once from its center.
+ */
+@Service
+public class PolygonAggregator {
+
+    private final PlainteSpatialIndex spatialIndex;
+
+    public PolygonAggregator(PlainteSpatialIndex spatialIndex) {
+        this.spatialIndex = spatialIndex;
+    }
+
+    public boolean isLoaded() {
+        return spatialIndex.isLoaded();
+    }
+
+    /**
+     * Grid cells of the polygon's bounding box at the spatial index resolution.
+     */
+    public long bboxCells(GeoPolygon polygon) {
+        return polygon.bboxCells(spatialIndex.getCellDegrees());
+    }
+
+    public Map<String, Object> aggregate(GeoPolygon polygon, SpatialFilter filter) {
+        double cellDegrees = spatialIndex.getCellDegrees();
+        Set<Long> boundary = polygon.boundaryCells(cellDegrees);
+
+        Map<String, Long> byCategorie = new TreeMap<>();
+        Map<String, Long> byStatut = new TreeMap<>();
+        long[] stats = new long[6]; // total, prioritySum, priorityCount, maxPriority, insideCells, pipTests
+        stats[3] = Long.MIN_VALUE;
+        int[] boundaryCells = {0};
+
+        spatialIndex.forEachCell(polygon.getSouth(), polygon.getWest(), polygon.getNorth(), polygon.getEast(),
+                (key, cell) -> {
+                    boolean exact = boundary.contains(key);
+                    if (exact) {
+                        boundaryCells[0]++;
+                    } else {
+                        double centerLat = (GeoUtils.cellRow(key) + 0.5) * cellDegrees - 90.0;
+                        double centerLon = (GeoUtils.cellCol(key) + 0.5) * cellDegrees - 180.0;
+                        if (!polygon.contains(centerLat, centerLon)) {
+                            return;
+                        }
+                        stats[4]++;
+                    }
+                    for (PlainteSnapshot p : cell.values()) {
+                        if (!filter.matches(p)) continue;
+                        if (exact) {
+                            stats[5]++;
+                            if (!polygon.contains(p.getLatitude(), p.getLongitude())) continue;
+                        }
+                        stats[0]++;
+                        byCategorie.merge(p.getCategorie() != null ? p.getCategorie() : "AUTRES", 1L, Long::sum);
+                        byStatut.merge(p.getStatut() != null ? p.getStatut().name() : "INCONNU", 1L, Long::sum);
+                        if (p.getPriorite() != null) {
+                            stats[1] += p.getPriorite();
+                            stats[2]++;
+                            stats[3] = Math.max(stats[3], p.getPriorite());
+                        }
+                    }
+                });
+
+        Map<String, Object> priorite = new HashMap<>();
+        priorite.put("moyenne", stats[2] > 0 ? Math.round(stats[1] * 10.0 / stats[2]) / 10.0 : null);
+        priorite.put("max", stats[2] > 0 ? stats[3] : null);
+
+        Map<String, Object> index = new HashMap<>();
+        index.put("inside_cells", stats[4]);
+        index.put("boundary_cells", boundaryCells[0]);
+        index.put("point_in_polygon_tests", stats[5]);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("total", stats[0]);
+        result.put("by_categorie", byCategorie);
+        result.put("by_statut", byStatut);
+        result.put("priorite", priorite);
+        result.put("index", index);
+        return result;
+    }
+}
@@ -0,0 +1,201 @@
+package com.observatoire.gestion_plaintes.geo;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sensitive sites (schools, hospitals, places of worship) from a static
+ * dataset, kept in a balanced k-d tree over unit-sphere coordinates so the
+ * nearest site is found in O(log n) without allocating. Straight-line
+ * (chord) distance on the sphere orders points like the great-circle one,
+ * so the tree answers exact nearest-neighbour queries.
+ *
+ * Dataset lines are "type;nom;latitude;longitude", '#' starts a comment.
+ */
+@Component
+public class SensitiveSiteIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensitiveSiteIndex.class);
+
+    public static final int NONE = -1;
+
+    private final Resource dataset;
+
+    // Replaced as a whole on reload so lookups never see a half-built tree
+    private volatile Tree tree = new Tree(new ArrayList<>());
+
+    public SensitiveSiteIndex(@Value("${geo.poi.resource:classpath:geo/sensitive-sites.csv}") Resource dataset) {
+        this.dataset = dataset;
+    }
+
+    @PostConstruct
+    public void reload() {
+        if (!dataset.exists()) {
+            logger.warn("Sensitive site dataset not found: {}", dataset.getDescription());
+            return;
+        }
+        List<String[]> sites = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(dataset.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split(";");
+                if (fields.length != 4) {
+                    logger.warn("Sensitive site line {} ignored: expected 4 fields", lineNumber);
+                    continue;
+                }
+                try {
+                    double lat = Double.parseDouble(fields[2].strip());
+                    double lon = Double.parseDouble(fields[3].strip());
+                    if (!GeoUtils.isValid(lat, lon)) {
+                        logger.warn("Sensitive site line {} ignored: invalid coordinates", lineNumber);
+                        continue;
+                    }
+                    sites.add(fields);
+                } catch (NumberFormatException e) {
+                    logger.warn("Sensitive site line {} ignored: {}", lineNumber, e.getMessage());
+                }
+            }
+            tree = new Tree(sites);
+            logger.info("Sensitive site index loaded: {} sites", tree.size);
+        } catch (Exception e) {
+            logger.error("Unable to load sensitive site index: {}", e.getMessage());
+        }
+    }
+
+    public int size() {
+        return tree.size;
+    }
+
+    /**
+     * Index of the site nearest to (lat, lon) within maxMeters, or NONE.
+     * The index is only meaningful for the accessors below until the next reload.
+     */
+    public int nearest(double lat, double lon, double maxMeters) {
+        Tree t = tree;
+        if (t.size == 0 || !GeoUtils.isValid(lat, lon)) {
+            return NONE;
+        }
+        double qx = x(lat, lon), qy = y(lat, lon), qz = z(lat);
+        double chord = 2 * Math.sin(Math.min(maxMeters / GeoUtils.EARTH_RADIUS_M, Math.PI) / 2);
+        return t.search(0, t.size, 0, qx, qy, qz, NONE, chord * chord);
+    }
+
+    public String getType(int site) {
+        return tree.types[site];
+    }
+
+    public String getNom(int site) {
+        return tree.noms[site];
+    }
+
+    public double distanceMeters(int site, double lat, double lon) {
+        Tree t = tree;
+        return GeoUtils.distanceMeters(lat, lon, t.latLon[2 * site], t.latLon[2 * site + 1]);
+    }
+
+    private static double x(double lat, double lon) {
+        return Math.cos(Math.toRadians(lat)) * Math.cos(Math.toRadians(lon));
+    }
+
+    private static double y(double lat, double lon) {
+        return Math.cos(Math.toRadians(lat)) * Math.sin(Math.toRadians(lon));
+    }
+
+    private static double z(double lat) {
+        return Math.sin(Math.toRadians(lat));
+    }
+
+    /**
+     * Implicit k-d tree: the node of [lo, hi) is at (lo + hi) / 2, its children
+     * are the halves on either side, split on axis depth % 3.
+     */
+    private static final class Tree {
+        final int size;
+        final double[] xyz;
+        final double[] latLon;
+        final String[] types;
+        final String[] noms;
+
+        Tree(List<String[]> sites) {
+            size = sites.size();
+            Integer[] order = new Integer[size];
+            double[][] points = new double[size][];
+            for (int i = 0; i < size; i++) {
+                double lat = Double.parseDouble(sites.get(i)[2].strip());
+                double lon = Double.parseDouble(sites.get(i)[3].strip());
+                points[i] = new double[]{x(lat, lon), y(lat, lon), z(lat), lat, lon};
+                order[i] = i;
+            }
+            build(order, points, 0, size, 0);
+
+            xyz = new double[3 * size];
+            latLon = new double[2 * size];
+            types = new String[size];
+            noms = new String[size];
+            for (int i = 0; i < size; i++) {
+                double[] p = points[order[i]];
+                System.arraycopy(p, 0, xyz, 3 * i, 3);
+                latLon[2 * i] = p[3];
+                latLon[2 * i + 1] = p[4];
+                types[i] = sites.get(order[i])[0].strip().toUpperCase();
+                noms[i] = sites.get(order[i])[1].strip();
+            }
+        }
+
+        private static void build(Integer[] order, double[][] points, int lo, int hi, int axis) {
+            if (hi - lo <= 1) return;
+            Arrays.sort(order, lo, hi, Comparator.comparingDouble(i -> points[i][axis]));
+            int mid = (lo + hi) >>> 1;
+            build(order, points, lo, mid, (axis + 1) % 3);
+            build(order, points, mid + 1, hi, (axis + 1) % 3);
+        }
+
+        int search(int lo, int hi, int axis, double qx, double qy, double qz, int best, double bestD2) {
+            if (lo >= hi) return best;
+            int mid = (lo + hi) >>> 1;
+            double dx = qx - xyz[3 * mid], dy = qy - xyz[3 * mid + 1], dz = qz - xyz[3 * mid + 2];
+            double d2 = dx * dx + dy * dy + dz * dz;
+            if (d2 <= bestD2) {
+                best = mid;
+                bestD2 = d2;
+            }
+            double diff = axis == 0 ? dx : axis == 1 ? dy : dz;
+            int next = (axis + 1) % 3;
+            int found = diff < 0
+                    ? search(lo, mid, next, qx, qy, qz, best, bestD2)
+                    : search(mid + 1, hi, next, qx, qy, qz, best, bestD2);
+            if (found != best) {
+                best = found;
+                bestD2 = dist2(found, qx, qy, qz);
+            }
+            if (diff * diff <= bestD2) {
+                best = diff < 0
+                        ? search(mid + 1, hi, next, qx, qy, qz, best, bestD2)
+                        : search(lo, mid, next, qx, qy, qz, best, bestD2);
+            }
+            return best;
+        }
+
+        private double dist2(int i, double qx, double qy, double qz) {
+            double dx = qx - xyz[3 * i], dy = qy - xyz[3 * i + 1], dz = qz - xyz[3 * i + 2];
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
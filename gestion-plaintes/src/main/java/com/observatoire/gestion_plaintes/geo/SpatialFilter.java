@@ -0,0 +1,55 @@
+package com.observatoire.gestion_plaintes.geo;
+
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+
+import java.time.LocalDateTime;
+
+/**
+ * Attribute filters applied to complaints found by a spatial lookup.
+ * Null fields mean "any"; the date range is inclusive.
+ */
+public class SpatialFilter {
+
+    public static final SpatialFilter NONE = new SpatialFilter(null, null, null, null);
+
+    private final StatutPlainte status;
+    private final String category;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    public SpatialFilter(StatutPlainte status, String category, LocalDateTime from, LocalDateTime to) {
+        this.status = status;
+        this.category = category != null && !category.isBlank() ? category : null;
+        this.from = from;
+        this.to = to;
+    }
+
+    public boolean matches(PlainteSnapshot p) {
+        if (status != null && status != p.getStatut()) return false;
+        if (category != null && !category.equals(p.getCategorie())) return false;
+        if (from != null || to != null) {
+            LocalDateTime date = p.getDateSoumission();
+            if (date == null) return false;
+            if (from != null && date.isBefore(from)) return false;
+            if (to != null && date.isAfter(to)) return false;
+        }
+        return true;
+    }
+
+    public StatutPlainte getStatus() {
+        return status;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+}
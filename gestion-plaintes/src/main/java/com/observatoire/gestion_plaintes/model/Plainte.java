@@ -7,6 +7,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_plainte_utilisateur_idempotency", columnNames = {"utilisateur_id", "idempotency_key"}))
 public class Plainte {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,6 +23,9 @@ public class Plainte {
     private String zone;
     private String localisation;
     private Integer priorite;
+    // Client generated key of an offline submission, null for complaints posted one by one
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
     @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
     @JoinColumn(name="analyse_ia_id")
     @JsonManagedReference
@@ -194,4 +199,12 @@ public class Plainte {
     public void setImgUrl(String imgUrl) {
         this.imgUrl = imgUrl;
     }
-}
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+}
\ No newline at end of file
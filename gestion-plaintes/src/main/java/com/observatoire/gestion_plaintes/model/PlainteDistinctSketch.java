@@ -0,0 +1,48 @@
+package com.observatoire.gestion_plaintes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Serialized DistinctCountSketch of one day: the reporters of a zone
+ * (dimension ZONE) or the zones of a catégorie (dimension CATEGORIE).
+ * Written back by PlainteDistinctCounts a little after the complaints it counts.
+ */
+@Entity
+@Table(name = "plainte_distinct_sketch", uniqueConstraints = @UniqueConstraint(
+        name = "uk_plainte_distinct_sketch", columnNames = {"jour", "dimension", "cle"}))
+public class PlainteDistinctSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private LocalDate jour;
+    @Column(nullable = false, length = 16)
+    private String dimension;
+    @Column(nullable = false)
+    private String cle;
+    @Column(nullable = false)
+    private byte[] registres;
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getJour() {
+        return jour;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public String getCle() {
+        return cle;
+    }
+
+    public byte[] getRegistres() {
+        return registres;
+    }
+}
@@ -0,0 +1,60 @@
+package com.observatoire.gestion_plaintes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Complaint count and priority sum per (zone, catégorie, statut, hour).
+ * Kept in step with plainte by PlainteRollupService. Unknown values are
+ * stored as "" so that every combination has exactly one row.
+ */
+@Entity
+@Table(name = "plainte_rollup_hourly", uniqueConstraints = @UniqueConstraint(
+        name = "uk_plainte_rollup_hourly", columnNames = {"zone", "categorie", "statut", "heure"}))
+public class PlainteRollupHoraire {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private String zone;
+    @Column(nullable = false)
+    private String categorie;
+    @Column(nullable = false, length = 16)
+    private String statut;
+    @Column(nullable = false)
+    private LocalDateTime heure;
+    @Column(nullable = false)
+    private long nombre;
+    @Column(nullable = false)
+    private long sommePriorite;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public String getCategorie() {
+        return categorie;
+    }
+
+    public String getStatut() {
+        return statut;
+    }
+
+    public LocalDateTime getHeure() {
+        return heure;
+    }
+
+    public long getNombre() {
+        return nombre;
+    }
+
+    public long getSommePriorite() {
+        return sommePriorite;
+    }
+}
@@ -0,0 +1,61 @@
+package com.observatoire.gestion_plaintes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Frozen statistics of one closed day: complaint count and priority sum per
+ * (zone, catégorie, statut). Written by PlainteDaySnapshots when the day is
+ * frozen, then only patched by late edits to that day's complaints. Unknown
+ * values are stored as "" so that every combination has exactly one row.
+ */
+@Entity
+@Table(name = "plainte_stats_daily_snapshot", uniqueConstraints = @UniqueConstraint(
+        name = "uk_plainte_stats_daily_snapshot", columnNames = {"jour", "zone", "categorie", "statut"}))
+public class PlainteStatsJour {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private LocalDate jour;
+    @Column(nullable = false)
+    private String zone;
+    @Column(nullable = false)
+    private String categorie;
+    @Column(nullable = false, length = 16)
+    private String statut;
+    @Column(nullable = false)
+    private long nombre;
+    @Column(nullable = false)
+    private long sommePriorite;
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getJour() {
+        return jour;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public String getCategorie() {
+        return categorie;
+    }
+
+    public String getStatut() {
+        return statut;
+    }
+
+    public long getNombre() {
+        return nombre;
+    }
+
+    public long getSommePriorite() {
+        return sommePriorite;
+    }
+}
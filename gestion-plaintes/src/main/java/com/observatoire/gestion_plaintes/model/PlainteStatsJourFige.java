@@ -0,0 +1,36 @@
+package com.observatoire.gestion_plaintes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A day whose rows in plainte_stats_daily_snapshot are complete; a day
+ * without complaints is frozen too, with no rows.
+ */
+@Entity
+@Table(name = "plainte_stats_daily_frozen")
+public class PlainteStatsJourFige {
+
+    @Id
+    private LocalDate jour;
+    @Column(nullable = false)
+    private LocalDateTime figeLe;
+
+    public PlainteStatsJourFige() {
+    }
+
+    public PlainteStatsJourFige(LocalDate jour, LocalDateTime figeLe) {
+        this.jour = jour;
+        this.figeLe = figeLe;
+    }
+
+    public LocalDate getJour() {
+        return jour;
+    }
+
+    public LocalDateTime getFigeLe() {
+        return figeLe;
+    }
+}
@@ -0,0 +1,93 @@
+package com.observatoire.gestion_plaintes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One status transition of a complaint; rows are only ever inserted.
+ * plainteId is not a foreign key so the history outlives a deleted complaint,
+ * and zone / catégorie are copied as they were at the time of the change.
+ * A row without ancienStatut is a marker written when the log was started,
+ * holding the status a complaint already had then. The row of plainteId 0
+ * records that start itself.
+ */
+@Entity
+@Table(name = "plainte_statut_historique", indexes = {
+        @Index(name = "idx_statut_historique_plainte", columnList = "plainte_id, nouveau_statut"),
+        @Index(name = "idx_statut_historique_date", columnList = "date_changement")})
+public class PlainteStatutHistorique {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private Long plainteId;
+    private String zone;
+    private String categorie;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private StatutPlainte ancienStatut;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private StatutPlainte nouveauStatut;
+    private LocalDateTime dateSoumission;
+    @Column(nullable = false)
+    private LocalDateTime dateChangement;
+    // First time this complaint reached nouveauStatut, never set for complaints older than the log:
+    // only these feed the time-to-status quantiles
+    @Column(nullable = false)
+    private boolean premiere;
+
+    public PlainteStatutHistorique() {
+    }
+
+    public PlainteStatutHistorique(Long plainteId, String zone, String categorie, StatutPlainte ancienStatut,
+                                   StatutPlainte nouveauStatut, LocalDateTime dateSoumission,
+                                   LocalDateTime dateChangement, boolean premiere) {
+        this.plainteId = plainteId;
+        this.zone = zone;
+        this.categorie = categorie;
+        this.ancienStatut = ancienStatut;
+        this.nouveauStatut = nouveauStatut;
+        this.dateSoumission = dateSoumission;
+        this.dateChangement = dateChangement;
+        this.premiere = premiere;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getPlainteId() {
+        return plainteId;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public String getCategorie() {
+        return categorie;
+    }
+
+    public StatutPlainte getAncienStatut() {
+        return ancienStatut;
+    }
+
+    public StatutPlainte getNouveauStatut() {
+        return nouveauStatut;
+    }
+
+    public LocalDateTime getDateSoumission() {
+        return dateSoumission;
+    }
+
+    public LocalDateTime getDateChangement() {
+        return dateChangement;
+    }
+
+    public boolean isPremiere() {
+        return premiere;
+    }
+}
@@ -0,0 +1,33 @@
+package com.observatoire.gestion_plaintes.repository;
+
+import com.observatoire.gestion_plaintes.model.PlainteDistinctSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+@Repository
+public interface PlainteDistinctSketchRepository extends JpaRepository<PlainteDistinctSketch, Long> {
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        INSERT INTO plainte_distinct_sketch (jour, dimension, cle, registres)
+        VALUES (:jour, :dimension, :cle, :registres)
+        ON CONFLICT (jour, dimension, cle) DO UPDATE
+        SET registres = EXCLUDED.registres""")
+    void upsert(@Param("jour") LocalDate jour, @Param("dimension") String dimension,
+                @Param("cle") String cle, @Param("registres") byte[] registres);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM plainte_distinct_sketch")
+    int deleteAllRows();
+
+    @Query("SELECT MAX(s.jour) FROM PlainteDistinctSketch s")
+    LocalDate findLastJour();
+}
@@ -0,0 +1,94 @@
+package com.observatoire.gestion_plaintes.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Attributes a client can ask for with ?fields= on /plaintes.
+ * Each one maps to a single column so the SELECT only reads what is returned;
+ * nothing from Utilisateur beyond its id is ever exposed this way.
+ */
+public enum PlainteField {
+    ID("id", null, "id"),
+    DESCRIPTION("description", null, "description"),
+    DATE_SOUMISSION("dateSoumission", null, "dateSoumission"),
+    LATITUDE("latitude", null, "latitude"),
+    LONGITUDE("longitude", null, "longitude"),
+    IMG_URL("imgUrl", null, "imgUrl"),
+    ZONE("zone", null, "zone"),
+    LOCALISATION("localisation", null, "localisation"),
+    PRIORITE("priorite", null, "priorite"),
+    STATUT("statut", null, "statut"),
+    CATEGORIE("categorie", "categorie", "nom"),
+    NIVEAU_URGENCE("niveauUrgence", "analyseIA", "niveauUrgence"),
+    UTILISATEUR_ID("utilisateurId", "utilisateur", "id");
+
+    private static final Map<String, List<PlainteField>> PRESETS = Map.of(
+            "summary", List.of(ID, DESCRIPTION, DATE_SOUMISSION, ZONE, STATUT, CATEGORIE, PRIORITE),
+            "map", List.of(ID, LATITUDE, LONGITUDE, CATEGORIE, STATUT, PRIORITE),
+            "full", List.of(values())
+    );
+
+    private final String jsonName;
+    private final String association;
+    private final String attribute;
+
+    PlainteField(String jsonName, String association, String attribute) {
+        this.jsonName = jsonName;
+        this.association = association;
+        this.attribute = attribute;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    /**
+     * Association to left-join before reading the attribute, null for a Plainte column
+     */
+    public String getAssociation() {
+        return association;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * Parse "summary", "map,imgUrl" or "id,zone,statut" into an ordered field list.
+     * The id is always included so rows can be matched back by the client.
+     *
+     * @throws IllegalArgumentException on an unknown field or preset name
+     */
+    public static List<PlainteField> parse(String fields) {
+        Set<PlainteField> result = new LinkedHashSet<>();
+        result.add(ID);
+        for (String token : fields.split(",")) {
+            String name = token.trim();
+            if (name.isEmpty()) continue;
+
+            List<PlainteField> preset = PRESETS.get(name.toLowerCase());
+            if (preset != null) {
+                result.addAll(preset);
+                continue;
+            }
+            PlainteField field = Arrays.stream(values())
+                    .filter(f -> f.jsonName.equalsIgnoreCase(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Champ inconnu : " + name));
+            result.add(field);
+        }
+        return new ArrayList<>(result);
+    }
+
+    public static List<String> allowedNames() {
+        List<String> names = new ArrayList<>(PRESETS.keySet().stream().sorted().toList());
+        names.addAll(Arrays.stream(values()).map(PlainteField::getJsonName).collect(Collectors.toList()));
+        return names;
+    }
+}
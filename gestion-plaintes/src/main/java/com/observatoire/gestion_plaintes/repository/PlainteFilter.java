@@ -0,0 +1,86 @@
+package com.observatoire.gestion_plaintes.repository;
+
+import com.observatoire.gestion_plaintes.model.Plainte;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filters accepted by GET /plaintes. Kept as one object so the JPA
+ * specification and the native EXPLAIN used for estimated counts stay in sync.
+ */
+public class PlainteFilter {
+    private StatutPlainte status;
+    private String category;
+    private String commune;
+    private String query;
+
+    public PlainteFilter() {}
+
+    public PlainteFilter(StatutPlainte status, String category, String commune, String query) {
+        this.status = status;
+        this.category = category;
+        this.commune = commune;
+        this.query = query != null && !query.isBlank() ? query : null;
+    }
+
+    public Specification<Plainte> toSpecification() {
+        Specification<Plainte> spec = Specification.where(null);
+        if (status != null) spec = spec.and((r, q, cb) ->
+                cb.equal(r.get("statut"), status));
+        if (category != null) spec = spec.and((r, q, cb) ->
+                cb.equal(r.join("categorie").get("nom"), category));
+        if (commune != null) spec = spec.and((r, q, cb) ->
+                cb.equal(r.get("zone"), commune));
+
+        if (query != null) {
+            String pattern = getQueryPattern();
+            spec = spec.and((r, q, cb) -> cb.or(
+                    cb.like(cb.lower(r.get("description")), pattern),
+                    cb.like(cb.lower(r.get("zone")), pattern),
+                    cb.like(cb.lower(r.join("categorie").get("nom")), pattern),
+                    cb.like(cb.lower(r.get("statut")), pattern)
+            ));
+        }
+        return spec;
+    }
+
+    public String getQueryPattern() {
+        return query != null ? "%" + query.toLowerCase() + "%" : null;
+    }
+
+    public boolean hasTextQuery() {
+        return query != null;
+    }
+
+    public StatutPlainte getStatus() {
+        return status;
+    }
+
+    public void setStatus(StatutPlainte status) {
+        this.status = status;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getCommune() {
+        return commune;
+    }
+
+    public void setCommune(String commune) {
+        this.commune = commune;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+}
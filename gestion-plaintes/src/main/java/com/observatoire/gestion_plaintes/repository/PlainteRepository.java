@@ -1,5 +1,6 @@
 package com.observatoire.gestion_plaintes.repository;
 
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
 import com.observatoire.gestion_plaintes.model.Plainte;
 import com.observatoire.gestion_plaintes.model.StatutPlainte;
 import com.observatoire.gestion_plaintes.model.Utilisateur;
@@ -10,11 +11,41 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface PlainteRepository extends JpaRepository<Plainte, Long>, JpaSpecificationExecutor<Plainte> {
+public interface PlainteRepository extends JpaRepository<Plainte, Long>, JpaSpecificationExecutor<Plainte>,
+        PlainteRepositoryCustom {
     List<Plainte> findByUtilisateur(Utilisateur utilisateur);
+
+    /**
+     * Every complaint reduced to the fields the in-memory indexes need, without loading entities.
+     */
+    @Query("SELECT new com.observatoire.gestion_plaintes.events.PlainteSnapshot(" +
+            "p.id, p.zone, c.nom, p.statut, p.priorite, p.dateSoumission, p.latitude, p.longitude, u.id) " +
+            "FROM Plainte p LEFT JOIN p.categorie c LEFT JOIN p.utilisateur u")
+    List<PlainteSnapshot> findAllSnapshots();
+
+    @Query("SELECT new com.observatoire.gestion_plaintes.events.PlainteSnapshot(" +
+            "p.id, p.zone, c.nom, p.statut, p.priorite, p.dateSoumission, p.latitude, p.longitude, u.id) " +
+            "FROM Plainte p LEFT JOIN p.categorie c LEFT JOIN p.utilisateur u " +
+            "WHERE p.dateSoumission >= :since")
+    List<PlainteSnapshot> findSnapshotsSince(@Param("since") LocalDateTime since);
+
+    List<Plainte> findByUtilisateurAndIdempotencyKeyIn(Utilisateur utilisateur, Collection<String> idempotencyKeys);
+
+    /**
+     * Multi-get with a fixed fetch plan: every to-one association in the same query,
+     * lazy collections are then loaded in IN batches (hibernate.default_batch_fetch_size)
+     */
+    @Query("SELECT p FROM Plainte p " +
+            "LEFT JOIN FETCH p.categorie " +
+            "LEFT JOIN FETCH p.analyseIA " +
+            "LEFT JOIN FETCH p.utilisateur " +
+            "LEFT JOIN FETCH p.serveur " +
+            "WHERE p.id IN :ids")
+    List<Plainte> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
     @Query("  SELECT p.zone, p.categorie.nom, COUNT(p) " +
             " FROM Plainte p " +
             " WHERE p.dateSoumission BETWEEN :from AND :to " +
@@ -203,23 +234,23 @@ public interface PlainteRepository extends JpaRepository<Plainte, Long>, JpaSpec
     List<Object[]> countByZoneAndPriority(@Param("from") LocalDateTime from);
 
     /**
-     * Get trending categories (categories with increasing complaint counts)
+     * Get trending categories (categories with increasing complaint counts).
+     * Reads mv_plainte_stats_daily, so periods start on the day of currentStart / previousStart.
      */
     @Query(nativeQuery = true, value = """
         WITH current_period AS (
-            SELECT c.nom as category, COUNT(*) as current_count
-            FROM plainte p
-            JOIN categorie c ON p.categorie_id = c.id
-            WHERE p.date_soumission >= :currentStart
-            GROUP BY c.nom
+            SELECT categorie as category, SUM(nombre) as current_count
+            FROM mv_plainte_stats_daily
+            WHERE categorie <> '' AND jour >= CAST(:currentStart AS date)
+            GROUP BY categorie
         ),
         previous_period AS (
-            SELECT c.nom as category, COUNT(*) as previous_count
-            FROM plainte p
-            JOIN categorie c ON p.categorie_id = c.id
-            WHERE p.date_soumission >= :previousStart 
-            AND p.date_soumission < :currentStart
-            GROUP BY c.nom
+            SELECT categorie as category, SUM(nombre) as previous_count
+            FROM mv_plainte_stats_daily
+            WHERE categorie <> ''
+            AND jour >= CAST(:previousStart AS date)
+            AND jour < CAST(:currentStart AS date)
+            GROUP BY categorie
         )
         SELECT 
             COALESCE(curr.category, prev.category) as category,
@@ -259,24 +290,23 @@ public interface PlainteRepository extends JpaRepository<Plainte, Long>, JpaSpec
     Long countByDateRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
     /**
-     * Requête détaillée pour analyse de cohérence
+     * Requête détaillée pour analyse de cohérence, sur mv_plainte_stats_daily (jours de from à to)
      */
-    @Query("""
+    @Query(nativeQuery = true, value = """
     SELECT 
-        p.zone,
-        c.nom as categorie,
-        COUNT(p) as total,
-        SUM(CASE WHEN p.statut = 'RESOLUE' THEN 1 ELSE 0 END) as resolues,
-        SUM(CASE WHEN p.statut = 'EN_COURS' THEN 1 ELSE 0 END) as en_cours,
-        SUM(CASE WHEN p.statut = 'EN_ATTENTE' THEN 1 ELSE 0 END) as en_attente,
-        SUM(CASE WHEN p.statut = 'REJETEE' THEN 1 ELSE 0 END) as rejetees,
-        AVG(COALESCE(p.priorite, 5)) as avg_priority,
-        MIN(p.dateSoumission) as first_complaint,
-        MAX(p.dateSoumission) as last_complaint
-    FROM Plainte p 
-    LEFT JOIN p.categorie c
-    WHERE p.dateSoumission BETWEEN :from AND :to
-    GROUP BY p.zone, c.nom
+        NULLIF(zone, '') as zone,
+        NULLIF(categorie, '') as categorie,
+        SUM(nombre) as total,
+        SUM(CASE WHEN statut = 'RESOLUE' THEN nombre ELSE 0 END) as resolues,
+        SUM(CASE WHEN statut = 'EN_COURS' THEN nombre ELSE 0 END) as en_cours,
+        SUM(CASE WHEN statut = 'SOUMISE' THEN nombre ELSE 0 END) as soumises,
+        SUM(CASE WHEN statut = 'REJETEE' THEN nombre ELSE 0 END) as rejetees,
+        SUM(somme_priorite) * 1.0 / SUM(nombre) as avg_priority,
+        MIN(premiere) as first_complaint,
+        MAX(derniere) as last_complaint
+    FROM mv_plainte_stats_daily
+    WHERE jour BETWEEN CAST(:from AS date) AND CAST(:to AS date)
+    GROUP BY zone, categorie
     ORDER BY total DESC
 """)
     List<Object[]> getDetailedStats(@Param("from") LocalDateTime from,
@@ -348,24 +378,22 @@ public interface PlainteRepository extends JpaRepository<Plainte, Long>, JpaSpec
                                              @Param("to") LocalDateTime to);
 
     /**
-     * Statistiques de performance par zone
+     * Statistiques de performance par zone, sur mv_plainte_stats_daily (jours de from à to)
      */
     @Query(nativeQuery = true, value = """
     WITH zone_stats AS (
         SELECT 
-            COALESCE(zone, 'Zone Inconnue') as zone,
-            COUNT(*) as total_plaintes,
-            COUNT(CASE WHEN statut = 'RESOLUE' THEN 1 END) as resolues,
-            AVG(CASE 
-                WHEN statut = 'RESOLUE' 
-                THEN EXTRACT(EPOCH FROM (CURRENT_TIMESTAMP - date_soumission))/3600 
-                ELSE NULL 
-            END) as avg_resolution_hours,
-            COUNT(CASE WHEN priorite >= 15 THEN 1 END) as high_priority,
-            COUNT(DISTINCT categorie_id) as categories_count
-        FROM plainte 
-        WHERE date_soumission BETWEEN :from AND :to
-        GROUP BY zone
+            COALESCE(NULLIF(zone, ''), 'Zone Inconnue') as zone,
+            SUM(nombre) as total_plaintes,
+            SUM(CASE WHEN statut = 'RESOLUE' THEN nombre ELSE 0 END) as resolues,
+            (EXTRACT(EPOCH FROM LOCALTIMESTAMP) * SUM(CASE WHEN statut = 'RESOLUE' THEN nombre END)
+                - SUM(CASE WHEN statut = 'RESOLUE' THEN somme_epoch END))
+                / NULLIF(SUM(CASE WHEN statut = 'RESOLUE' THEN nombre END), 0) / 3600 as avg_resolution_hours,
+            SUM(haute_priorite) as high_priority,
+            COUNT(DISTINCT NULLIF(categorie, '')) as categories_count
+        FROM mv_plainte_stats_daily
+        WHERE jour BETWEEN CAST(:from AS date) AND CAST(:to AS date)
+        GROUP BY 1
     )
     SELECT 
         zone,
@@ -376,7 +404,7 @@ public interface PlainteRepository extends JpaRepository<Plainte, Long>, JpaSpec
             THEN ROUND((resolues * 100.0 / total_plaintes), 1)
             ELSE 0 
         END as taux_resolution,
-        COALESCE(ROUND(avg_resolution_hours, 1), 0) as avg_resolution_hours,
+        COALESCE(ROUND(CAST(avg_resolution_hours AS numeric), 1), 0) as avg_resolution_hours,
         high_priority,
         categories_count
     FROM zone_stats
@@ -387,17 +415,17 @@ public interface PlainteRepository extends JpaRepository<Plainte, Long>, JpaSpec
                                            @Param("to") LocalDateTime to);
 
     /**
-     * Détection d'anomalies dans les données
+     * Détection d'anomalies dans les données, sur mv_plainte_stats_daily (jours de from à to)
      */
     @Query(nativeQuery = true, value = """
     WITH daily_counts AS (
         SELECT 
-            DATE(date_soumission) as complaint_date,
-            zone,
-            COUNT(*) as daily_count
-        FROM plainte 
-        WHERE date_soumission BETWEEN :from AND :to
-        GROUP BY DATE(date_soumission), zone
+            jour as complaint_date,
+            NULLIF(zone, '') as zone,
+            SUM(nombre) as daily_count
+        FROM mv_plainte_stats_daily
+        WHERE jour BETWEEN CAST(:from AS date) AND CAST(:to AS date)
+        GROUP BY jour, zone
     ),
     zone_averages AS (
         SELECT 
@@ -484,9 +512,30 @@ public interface PlainteRepository extends JpaRepository<Plainte, Long>, JpaSpec
             @Param("to") LocalDateTime to
     );
 
+    /**
+     * Raw counterpart of the hourly rollup and the stats cube, for the partial hours
+     * or quarter-hours at the edges of a range
+     */
+    @Query("SELECT p.zone, c.nom, p.statut, COUNT(p), SUM(COALESCE(p.priorite, 0)) " +
+            "FROM Plainte p " +
+            "LEFT JOIN p.categorie c " +
+            "WHERE p.dateSoumission BETWEEN :from AND :to " +
+            "GROUP BY p.zone, c.nom, p.statut")
+    List<Object[]> countByZoneCategorieAndStatut(@Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
+
     @Query("SELECT COUNT(p) FROM Plainte p WHERE p.statut = :statut")
     Long countByStatut(@Param("statut") StatutPlainte statut);
 
+    /**
+     * Seed for PlainteCounters: one row per (statut, zone, catégorie)
+     */
+    @Query("SELECT p.statut, p.zone, c.nom, COUNT(p) " +
+            "FROM Plainte p " +
+            "LEFT JOIN p.categorie c " +
+            "GROUP BY p.statut, p.zone, c.nom")
+    List<Object[]> countByStatutZoneAndCategorie();
+
     }
 
 
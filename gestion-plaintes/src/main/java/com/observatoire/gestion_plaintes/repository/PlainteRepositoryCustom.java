@@ -0,0 +1,38 @@
+package com.observatoire.gestion_plaintes.repository;
+
+import com.observatoire.gestion_plaintes.model.Plainte;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries that Spring Data cannot derive: page fetches without a
+ * COUNT(*) and cheaper ways of sizing a filtered result.
+ */
+public interface PlainteRepositoryCustom {
+
+    /**
+     * Fetch one page plus one extra row to know whether a next page exists.
+     */
+    Slice<Plainte> findSlice(Specification<Plainte> spec, Pageable pageable);
+
+    /**
+     * Same as findSlice but selecting only the given columns, one map per row
+     * keyed by PlainteField.getJsonName().
+     */
+    Slice<Map<String, Object>> findProjectedSlice(Specification<Plainte> spec, List<PlainteField> fields,
+                                                  Pageable pageable);
+
+    /**
+     * Count matching rows but stop after cap + 1 of them.
+     */
+    long countUpTo(Specification<Plainte> spec, long cap);
+
+    /**
+     * Row estimate from the PostgreSQL planner (EXPLAIN), no scan performed.
+     */
+    long estimateCount(PlainteFilter filter);
+}
@@ -0,0 +1,166 @@
+package com.observatoire.gestion_plaintes.repository;
+
+import com.observatoire.gestion_plaintes.model.Plainte;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class PlainteRepositoryCustomImpl implements PlainteRepositoryCustom {
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Plainte> findSlice(Specification<Plainte> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Plainte> cq = cb.createQuery(Plainte.class);
+        Root<Plainte> root = cq.from(Plainte.class);
+
+        Predicate predicate = spec.toPredicate(root, cq, cb);
+        if (predicate != null) {
+            cq.where(predicate);
+        }
+        cq.select(root);
+        if (pageable.getSort().isSorted()) {
+            cq.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<Plainte> query = entityManager.createQuery(cq);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+
+        List<Plainte> rows = query.getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<Plainte> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(new ArrayList<>(content), pageable, hasNext);
+    }
+
+    @Override
+    public Slice<Map<String, Object>> findProjectedSlice(Specification<Plainte> spec, List<PlainteField> fields,
+                                                         Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Plainte> root = cq.from(Plainte.class);
+
+        // One LEFT JOIN per association actually needed by the requested fields
+        Map<String, Join<Plainte, ?>> joins = new HashMap<>();
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (PlainteField field : fields) {
+            Path<?> path = field.getAssociation() == null
+                    ? root.get(field.getAttribute())
+                    : joins.computeIfAbsent(field.getAssociation(), a -> root.join(a, JoinType.LEFT))
+                           .get(field.getAttribute());
+            selections.add(path.alias(field.getJsonName()));
+        }
+        cq.multiselect(selections);
+
+        Predicate predicate = spec.toPredicate(root, cq, cb);
+        if (predicate != null) {
+            cq.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            cq.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<Tuple> query = entityManager.createQuery(cq);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+
+        List<Tuple> rows = query.getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<Map<String, Object>> content = new ArrayList<>(Math.min(rows.size(), pageable.getPageSize()));
+        for (Tuple row : hasNext ? rows.subList(0, pageable.getPageSize()) : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (PlainteField field : fields) {
+                values.put(field.getJsonName(), row.get(field.getJsonName()));
+            }
+            content.add(values);
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public long countUpTo(Specification<Plainte> spec, long cap) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Plainte> root = cq.from(Plainte.class);
+
+        Predicate predicate = spec.toPredicate(root, cq, cb);
+        if (predicate != null) {
+            cq.where(predicate);
+        }
+        cq.select(root.get("id"));
+
+        TypedQuery<Long> query = entityManager.createQuery(cq);
+        query.setMaxResults((int) Math.min(Integer.MAX_VALUE, cap + 1));
+        return query.getResultList().size();
+    }
+
+    @Override
+    public long estimateCount(PlainteFilter filter) {
+        // Mirrors PlainteFilter.toSpecification() in SQL so the planner sees the same predicates
+        StringBuilder sql = new StringBuilder(
+                "EXPLAIN SELECT 1 FROM plainte p LEFT JOIN categorie c ON c.id = p.categorie_id WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+
+        if (filter.getStatus() != null) {
+            sql.append(" AND p.statut = ?");
+            params.add(filter.getStatus().name());
+        }
+        if (filter.getCategory() != null) {
+            sql.append(" AND c.nom = ?");
+            params.add(filter.getCategory());
+        }
+        if (filter.getCommune() != null) {
+            sql.append(" AND p.zone = ?");
+            params.add(filter.getCommune());
+        }
+        if (filter.hasTextQuery()) {
+            sql.append(" AND (lower(p.description) LIKE ? OR lower(p.zone) LIKE ?")
+               .append(" OR lower(c.nom) LIKE ? OR lower(p.statut) LIKE ?)");
+            for (int i = 0; i < 4; i++) {
+                params.add(filter.getQueryPattern());
+            }
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+
+        // First plan line is the top node: "Hash Join  (cost=... rows=1234 width=4)"
+        List<?> plan = query.getResultList();
+        if (!plan.isEmpty()) {
+            Matcher m = PLAN_ROWS.matcher(String.valueOf(plan.get(0)));
+            if (m.find()) {
+                return Long.parseLong(m.group(1));
+            }
+        }
+        throw new IllegalStateException("Unable to read row estimate from query plan");
+    }
+}
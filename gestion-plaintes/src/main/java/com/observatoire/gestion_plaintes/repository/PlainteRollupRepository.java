@@ -0,0 +1,81 @@
+package com.observatoire.gestion_plaintes.repository;
+
+import com.observatoire.gestion_plaintes.model.PlainteRollupHoraire;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PlainteRollupRepository extends JpaRepository<PlainteRollupHoraire, Long> {
+
+    /**
+     * Adds nombre and priorite to the row of (zone, categorie, statut, heure), creating it if needed.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        INSERT INTO plainte_rollup_hourly (zone, categorie, statut, heure, nombre, somme_priorite)
+        VALUES (:zone, :categorie, :statut, :heure, :nombre, :priorite)
+        ON CONFLICT (zone, categorie, statut, heure) DO UPDATE
+        SET nombre = plainte_rollup_hourly.nombre + EXCLUDED.nombre,
+            somme_priorite = plainte_rollup_hourly.somme_priorite + EXCLUDED.somme_priorite""")
+    void increment(@Param("zone") String zone,
+                   @Param("categorie") String categorie,
+                   @Param("statut") String statut,
+                   @Param("heure") LocalDateTime heure,
+                   @Param("nombre") long nombre,
+                   @Param("priorite") long priorite);
+
+    // Held until commit: concurrent increments wait for the rebuild instead of being lost
+    @Modifying
+    @Query(nativeQuery = true, value = "LOCK TABLE plainte_rollup_hourly IN EXCLUSIVE MODE")
+    void lockForRebuild();
+
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM plainte_rollup_hourly")
+    int deleteAllRows();
+
+    /**
+     * Recomputes every row from plainte; used by the rebuild command.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        INSERT INTO plainte_rollup_hourly (zone, categorie, statut, heure, nombre, somme_priorite)
+        SELECT COALESCE(p.zone, ''), COALESCE(c.nom, ''), COALESCE(p.statut, ''),
+               date_trunc('hour', p.date_soumission), COUNT(*), SUM(COALESCE(p.priorite, 0))
+        FROM plainte p
+        LEFT JOIN categorie c ON p.categorie_id = c.id
+        WHERE p.date_soumission IS NOT NULL
+        GROUP BY 1, 2, 3, 4""")
+    int insertFromPlaintes();
+
+    /**
+     * Totals per (zone, categorie, statut) over the hour buckets in [from, to).
+     */
+    @Query("SELECT r.zone, r.categorie, r.statut, SUM(r.nombre), SUM(r.sommePriorite) " +
+            "FROM PlainteRollupHoraire r " +
+            "WHERE r.heure >= :from AND r.heure < :to " +
+            "GROUP BY r.zone, r.categorie, r.statut")
+    List<Object[]> sumByZoneCategorieAndStatut(@Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to);
+
+    @Query("SELECT r.zone, r.categorie, r.statut, SUM(r.nombre), SUM(r.sommePriorite) " +
+            "FROM PlainteRollupHoraire r " +
+            "GROUP BY r.zone, r.categorie, r.statut")
+    List<Object[]> sumAllByZoneCategorieAndStatut();
+
+    /**
+     * Totals per (day, zone, categorie, statut) over the hour buckets in [from, to).
+     */
+    @Query(nativeQuery = true, value = """
+        SELECT CAST(heure AS date), zone, categorie, statut, SUM(nombre), SUM(somme_priorite)
+        FROM plainte_rollup_hourly
+        WHERE heure >= :from AND heure < :to
+        GROUP BY 1, 2, 3, 4""")
+    List<Object[]> sumByDayZoneCategorieAndStatut(@Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,11 @@
+package com.observatoire.gestion_plaintes.repository;
+
+import com.observatoire.gestion_plaintes.model.PlainteStatsJourFige;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface PlainteStatsJourFigeRepository extends JpaRepository<PlainteStatsJourFige, LocalDate> {
+}
@@ -0,0 +1,60 @@
+package com.observatoire.gestion_plaintes.repository;
+
+import com.observatoire.gestion_plaintes.model.PlainteStatsJour;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PlainteStatsJourRepository extends JpaRepository<PlainteStatsJour, Long> {
+
+    /**
+     * Adds nombre and priorite to the row of (jour, zone, categorie, statut), creating it if needed.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        INSERT INTO plainte_stats_daily_snapshot (jour, zone, categorie, statut, nombre, somme_priorite)
+        VALUES (:jour, :zone, :categorie, :statut, :nombre, :priorite)
+        ON CONFLICT (jour, zone, categorie, statut) DO UPDATE
+        SET nombre = plainte_stats_daily_snapshot.nombre + EXCLUDED.nombre,
+            somme_priorite = plainte_stats_daily_snapshot.somme_priorite + EXCLUDED.somme_priorite""")
+    void increment(@Param("jour") LocalDate jour,
+                   @Param("zone") String zone,
+                   @Param("categorie") String categorie,
+                   @Param("statut") String statut,
+                   @Param("nombre") long nombre,
+                   @Param("priorite") long priorite);
+
+    // Held until commit: patches from late edits wait for the freeze instead of being overwritten
+    @Modifying
+    @Query(nativeQuery = true, value = "LOCK TABLE plainte_stats_daily_snapshot IN EXCLUSIVE MODE")
+    void lockForFreeze();
+
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM plainte_stats_daily_snapshot WHERE jour >= :from AND jour <= :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Copies the per-day totals of the hourly rollup over the hour buckets in [from, to).
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        INSERT INTO plainte_stats_daily_snapshot (jour, zone, categorie, statut, nombre, somme_priorite)
+        SELECT CAST(heure AS date), zone, categorie, statut, SUM(nombre), SUM(somme_priorite)
+        FROM plainte_rollup_hourly
+        WHERE heure >= :from AND heure < :to
+        GROUP BY 1, 2, 3, 4
+        HAVING SUM(nombre) > 0""")
+    int insertFromRollup(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT s.jour, s.zone, s.categorie, s.statut, s.nombre, s.sommePriorite " +
+            "FROM PlainteStatsJour s " +
+            "WHERE s.jour >= :from AND s.jour <= :to AND s.nombre > 0")
+    List<Object[]> findByJourBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
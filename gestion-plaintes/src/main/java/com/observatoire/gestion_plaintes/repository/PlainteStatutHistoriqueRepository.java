@@ -0,0 +1,58 @@
+package com.observatoire.gestion_plaintes.repository;
+
+import com.observatoire.gestion_plaintes.model.PlainteStatutHistorique;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PlainteStatutHistoriqueRepository extends JpaRepository<PlainteStatutHistorique, Long> {
+
+    List<PlainteStatutHistorique> findByPlainteIdOrderByDateChangementAsc(Long plainteId);
+
+    boolean existsByPlainteIdAndNouveauStatut(Long plainteId, StatutPlainte nouveauStatut);
+
+    /**
+     * Whether the complaint already existed when the log was started (it has a marker row).
+     */
+    boolean existsByPlainteIdAndAncienStatutIsNullAndPremiereFalse(Long plainteId);
+
+    /**
+     * Earliest change logged, null on an empty table.
+     */
+    @Query("SELECT MIN(h.dateChangement) FROM PlainteStatutHistorique h")
+    LocalDateTime findFirstDateChangement();
+
+    /**
+     * One marker row per complaint submitted before the start of the log and not marked yet,
+     * holding the status it has now.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        INSERT INTO plainte_statut_historique
+            (plainte_id, zone, categorie, ancien_statut, nouveau_statut, date_soumission, date_changement, premiere)
+        SELECT p.id, p.zone, c.nom, NULL, p.statut, p.date_soumission, :debut, false
+        FROM plainte p
+        LEFT JOIN categorie c ON c.id = p.categorie_id
+        WHERE p.statut IS NOT NULL
+          AND (p.date_soumission IS NULL OR p.date_soumission < :debut)
+          AND NOT EXISTS (SELECT 1 FROM plainte_statut_historique h
+                          WHERE h.plainte_id = p.id AND h.ancien_statut IS NULL AND h.premiere = false)""")
+    int insertMarkers(@Param("debut") LocalDateTime debut);
+
+    /**
+     * First arrivals in the given statuses, as [zone, categorie, nouveauStatut, dateSoumission, dateChangement].
+     */
+    @Query("SELECT h.zone, h.categorie, h.nouveauStatut, h.dateSoumission, h.dateChangement " +
+            "FROM PlainteStatutHistorique h " +
+            "WHERE h.premiere = true AND h.nouveauStatut IN :statuts AND h.dateSoumission IS NOT NULL")
+    List<Object[]> findFirstArrivals(@Param("statuts") List<StatutPlainte> statuts);
+}
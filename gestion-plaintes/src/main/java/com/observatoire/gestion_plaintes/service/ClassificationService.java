@@ -4,16 +4,21 @@ import com.observatoire.gestion_plaintes.DTOs.Request.ClassificationRequestDTO;
 import com.observatoire.gestion_plaintes.DTOs.Response.ClassificationResponse;
 import com.observatoire.gestion_plaintes.DTOs.Response.ClassificationResponseDTO;
 import com.observatoire.gestion_plaintes.config.NLPServiceConfig;
+import com.observatoire.gestion_plaintes.geo.SensitiveSiteIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -27,7 +32,18 @@ public class ClassificationService {
     @Autowired
     private NLPServiceConfig nlpConfig;
 
+    @Autowired
+    private SensitiveSiteIndex sensitiveSiteIndex;
+
+    // A school, hospital or place of worship closer than this raises the priority
+    @Value("${geo.poi.radius-m:300}")
+    private double sensitiveSiteRadius;
+
     private static final String CLASSIFY_ENDPOINT = "/classify";
+    private static final String CLASSIFY_BATCH_ENDPOINT = "/classify-batch";
+
+    private static final int SENSITIVE_SITE_BONUS = 3;
+    private static final int MAX_PRIORITY = 25;
 
     // Fallback classification rules when NLP service is unavailable
     private static final Map<String, String> KEYWORD_CATEGORIES = new HashMap<>();
@@ -310,17 +326,36 @@ public class ClassificationService {
             }
         }
 
-        // Add location bonus for sensitive areas
-        if (zone != null) {
+        // Add location bonus for sensitive areas named in the zone, unless sites are
+        // known by their coordinates: withLocationBonus then handles them instead
+        if (zone != null && sensitiveSiteIndex.size() == 0) {
             String lowerZone = zone.toLowerCase();
             if (lowerZone.contains("école") || lowerZone.contains("hôpital") ||
                     lowerZone.contains("mosquée") || lowerZone.contains("lycée")) {
-                basePriority += 3;
+                basePriority += SENSITIVE_SITE_BONUS;
             }
         }
 
-        return Math.min(basePriority, 25); // Cap at maximum priority
+        return Math.min(basePriority, MAX_PRIORITY); // Cap at maximum priority
+    }
+
+    /**
+     * Adds the sensitive-site bonus when a school, hospital or place of worship lies
+     * within geo.poi.radius-m of the complaint. Runs on every submission, so the
+     * lookup goes through the in-memory site index. The result is capped at the larger
+     * of the maximum priority and the incoming one, so a higher NLP priority is kept as is.
+     */
+    public Integer withLocationBonus(Integer priorite, Double latitude, Double longitude) {
+        if (priorite == null || latitude == null || longitude == null) {
+            return priorite;
+        }
+        int site = sensitiveSiteIndex.nearest(latitude, longitude, sensitiveSiteRadius);
+        if (site == SensitiveSiteIndex.NONE) {
+            return priorite;
+        }
+        return Math.min(priorite + SENSITIVE_SITE_BONUS, Math.max(priorite, MAX_PRIORITY));
     }
+
     public Map<String,Object> classifyRaw(String description, String zone) {
         String url = nlpConfig.getNlpServiceUrl() + CLASSIFY_ENDPOINT;
 
@@ -338,6 +373,45 @@ public class ClassificationService {
         return resp.getBody();
     }
 
+    /**
+     * Raw classification of several complaints with one call to /classify-batch.
+     * Results are in request order; an entry is null when that complaint could not be classified.
+     * Falls back to one /classify call per complaint if the batch endpoint is unavailable.
+     */
+    public List<Map<String, Object>> classifyRawBatch(List<ClassificationRequestDTO> requests) {
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String url = nlpConfig.getNlpServiceUrl() + CLASSIFY_BATCH_ENDPOINT;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        try {
+            ResponseEntity<List<Map<String, Object>>> resp = restTemplate.exchange(
+                    url, HttpMethod.POST, new HttpEntity<>(requests, headers),
+                    new ParameterizedTypeReference<List<Map<String, Object>>>() {});
+            if (resp.getStatusCode() == HttpStatus.OK && resp.getBody() != null
+                    && resp.getBody().size() == requests.size()) {
+                return resp.getBody();
+            }
+            logger.warn("Invalid batch response from NLP service, classifying one by one");
+        } catch (RestClientException e) {
+            logger.warn("NLP batch classification failed, classifying one by one: {}", e.getMessage());
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(requests.size());
+        for (ClassificationRequestDTO request : requests) {
+            try {
+                results.add(classifyRaw(request.getDescription(), request.getLocalisation()));
+            } catch (Exception e) {
+                logger.error("Failed to classify complaint: {}", e.getMessage());
+                results.add(null);
+            }
+        }
+        return results;
+    }
+
     /**
      * Determine urgency level based on priority score
      */
@@ -0,0 +1,35 @@
+package com.observatoire.gestion_plaintes.service;
+
+import java.util.List;
+
+/**
+ * How GET /plaintes sizes the filtered result.
+ */
+public enum CountMode {
+    EXACT,      // SELECT COUNT(*) with the same filters (default, historical behaviour)
+    CAPPED,     // count at most plaintes.count.cap rows, then report "cap+"
+    ESTIMATED,  // PostgreSQL planner estimate
+    COUNTERS,   // in-memory per statut/zone/catégorie counters
+    NONE;       // slice only: content + hasNext
+
+    /**
+     * @throws IllegalArgumentException for a value that is not one of allowedNames()
+     */
+    public static CountMode fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return EXACT;
+        }
+        return switch (value.trim().toLowerCase()) {
+            case "capped", "cap" -> CAPPED;
+            case "estimate", "estimated" -> ESTIMATED;
+            case "counters", "counter" -> COUNTERS;
+            case "none", "slice" -> NONE;
+            case "exact" -> EXACT;
+            default -> throw new IllegalArgumentException("Mode de comptage inconnu : " + value.trim());
+        };
+    }
+
+    public static List<String> allowedNames() {
+        return List.of("exact", "capped", "estimate", "counters", "none");
+    }
+}
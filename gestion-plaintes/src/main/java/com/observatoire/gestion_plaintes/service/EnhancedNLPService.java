@@ -4,12 +4,14 @@ import com.observatoire.gestion_plaintes.DTOs.Response.ClassificationResponse;
 import com.observatoire.gestion_plaintes.DTOs.SummaryDTO;
 import com.observatoire.gestion_plaintes.model.Plainte;
 import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import com.observatoire.gestion_plaintes.stats.serivce.PlainteWindowCounters;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -23,6 +25,9 @@ public class EnhancedNLPService {
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private PlainteWindowCounters windowCounters;
+
     @Value("${nlp.service.url:http://localhost:8000}")
     private String nlpServiceUrl;
 
@@ -70,7 +75,7 @@ public class EnhancedNLPService {
         try {
             // Get recent complaints from database
             LocalDateTime from = LocalDateTime.now().minusHours(hours);
-            List<Object[]> rawData = plainteRepository.countRecentByZoneAndCategory(from);
+            List<Object[]> rawData = countRecentByZoneAndCategory(hours, from);
 
             // Get detailed complaint data for NLP analysis
             List<Plainte> recentComplaints = plainteRepository.findAll()
@@ -221,6 +226,24 @@ public class EnhancedNLPService {
     // HELPER METHODS
     // ============================================================================
 
+    /**
+     * Same rows as PlainteRepository.countRecentByZoneAndCategory, [zone, catégorie, count],
+     * from the in-memory window counters when they cover the period.
+     */
+    private List<Object[]> countRecentByZoneAndCategory(int hours, LocalDateTime from) {
+        Duration window = Duration.ofHours(hours);
+        if (!windowCounters.isLoaded() || window.compareTo(windowCounters.getMaxWindow()) > 0) {
+            return plainteRepository.countRecentByZoneAndCategory(from);
+        }
+        return windowCounters.counts(window, null).stream()
+                .filter(c -> c.categorie() != null)
+                .sorted(Comparator.comparingLong(PlainteWindowCounters.WindowCount::count).reversed()
+                        .thenComparing(PlainteWindowCounters.WindowCount::zone,
+                                Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(c -> new Object[]{c.zone(), c.categorie(), c.count()})
+                .collect(Collectors.toList());
+    }
+
     private Map<String, Object> convertPlainteToNLPFormat(Plainte plainte) {
         Map<String, Object> nlpData = new HashMap<>();
         nlpData.put("id", plainte.getId());
@@ -289,7 +312,7 @@ public class EnhancedNLPService {
     private List<SummaryDTO> generateBasicSummaries(int hours, String zoneFilter) {
         // Basic summaries without NLP enhancement
         LocalDateTime from = LocalDateTime.now().minusHours(hours);
-        List<Object[]> rawData = plainteRepository.countRecentByZoneAndCategory(from);
+        List<Object[]> rawData = countRecentByZoneAndCategory(hours, from);
 
         return rawData.stream()
                 .filter(row -> zoneFilter == null || zoneFilter.equals((String) row[0]))
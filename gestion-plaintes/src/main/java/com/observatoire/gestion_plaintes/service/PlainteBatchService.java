@@ -0,0 +1,270 @@
+package com.observatoire.gestion_plaintes.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.observatoire.gestion_plaintes.DTOs.Request.ClassificationRequestDTO;
+import com.observatoire.gestion_plaintes.DTOs.Request.PlainteBatchRequestDTO;
+import com.observatoire.gestion_plaintes.DTOs.Response.ClassificationResponseDTO;
+import com.observatoire.gestion_plaintes.model.AnalyseIA;
+import com.observatoire.gestion_plaintes.model.Categorie;
+import com.observatoire.gestion_plaintes.model.Plainte;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+import com.observatoire.gestion_plaintes.model.Utilisateur;
+import com.observatoire.gestion_plaintes.repository.CategorieRepository;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Replays complaints queued offline on the mobile app.
+ * Nearby points share one geocoding lookup, the NLP service is called once for the
+ * whole batch and all new complaints are stored in a single transaction.
+ */
+@Service
+public class PlainteBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteBatchService.class);
+
+    private static final int MAX_KEY_LENGTH = 64;
+
+    @Autowired
+    private PlainteService plainteService;
+
+    @Autowired
+    private PlainteRepository plainteRepository;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private GeoCodingService geoCodingService;
+
+    @Autowired
+    private ClassificationService classificationService;
+
+    // Points closer than this (in degrees, ~110 m for 0.001) reuse the same geocoded zone
+    @Value("${plaintes.batch.geocode-cell-degrees:0.001}")
+    private double geocodeCellDegrees;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private record Classified(int index, String zone, Categorie categorie,
+                              Map<String, Object> nlpResponse, ClassificationResponseDTO result) {}
+
+    /**
+     * @return per-item results in request order plus a count per status
+     */
+    public Map<String, Object> soumettre(Utilisateur utilisateur, List<PlainteBatchRequestDTO.Item> items) {
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        Map<String, Integer> firstIndexByKey = new HashMap<>();
+        List<Integer> pending = new ArrayList<>();
+
+        // 1) Validation and duplicate keys inside the batch
+        for (int i = 0; i < items.size(); i++) {
+            PlainteBatchRequestDTO.Item item = items.get(i);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", i);
+            result.put("idempotency_key", item != null ? item.getIdempotencyKey() : null);
+            results.add(result);
+
+            String error = validate(item);
+            if (error != null) {
+                result.put("status", "invalid");
+                result.put("error", error);
+                continue;
+            }
+            Integer first = firstIndexByKey.putIfAbsent(item.getIdempotencyKey(), i);
+            if (first != null) {
+                result.put("status", "duplicate");
+                result.put("duplicate_of", first);
+                continue;
+            }
+            pending.add(i);
+        }
+
+        // 2) Keys already stored by an earlier replay
+        pending = withoutExisting(utilisateur, items, pending, results);
+        if (pending.isEmpty()) {
+            return response(results);
+        }
+
+        // 3) Geocoding, one lookup per cell
+        Map<String, String> zonesByCell = new HashMap<>();
+        Map<Integer, String> zones = new HashMap<>();
+        for (int i : pending) {
+            PlainteBatchRequestDTO.Item item = items.get(i);
+            String zone = zonesByCell.computeIfAbsent(
+                    cellKey(item.getLatitude(), item.getLongitude()),
+                    cell -> geoCodingService.fetchZone(item.getLatitude(), item.getLongitude()));
+            zones.put(i, zone);
+        }
+        logger.info("Batch of {} complaints geocoded with {} lookups", pending.size(), zonesByCell.size());
+
+        // 4) Classification, one NLP call for the whole batch
+        LocalDateTime now = LocalDateTime.now();
+        List<ClassificationRequestDTO> requests = new ArrayList<>(pending.size());
+        for (int i : pending) {
+            requests.add(new ClassificationRequestDTO(items.get(i).getDescription(), zones.get(i), now));
+        }
+        List<Map<String, Object>> nlpResponses = classificationService.classifyRawBatch(requests);
+
+        Map<String, Categorie> categories = categorieRepository.findAll().stream()
+                .collect(Collectors.toMap(Categorie::getNom, c -> c, (a, b) -> a));
+
+        List<Classified> classified = new ArrayList<>(pending.size());
+        for (int j = 0; j < pending.size(); j++) {
+            int i = pending.get(j);
+            Map<String, Object> nlpResponse = nlpResponses.get(j);
+            if (nlpResponse == null) {
+                fail(results.get(i), "Classification indisponible");
+                continue;
+            }
+            ClassificationResponseDTO result = objectMapper.convertValue(nlpResponse, ClassificationResponseDTO.class);
+            Categorie categorie = categories.get(result.getCategorie());
+            if (categorie == null) {
+                fail(results.get(i), "Catégorie prédite inconnue : " + result.getCategorie());
+                continue;
+            }
+            classified.add(new Classified(i, zones.get(i), categorie, nlpResponse, result));
+        }
+
+        // 5) One transaction for every new complaint
+        List<Plainte> saved;
+        try {
+            saved = plainteService.enregistrerTous(build(utilisateur, items, classified, now));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent replay of the same queue stored some keys first: drop those and retry once
+            logger.warn("Idempotency key conflict in batch, retrying without stored keys: {}", e.getMessage());
+            Set<Integer> remaining = new HashSet<>(withoutExisting(utilisateur, items,
+                    classified.stream().map(Classified::index).collect(Collectors.toList()), results));
+            classified = classified.stream().filter(c -> remaining.contains(c.index())).collect(Collectors.toList());
+            saved = plainteService.enregistrerTous(build(utilisateur, items, classified, now));
+        }
+
+        for (int j = 0; j < classified.size(); j++) {
+            Classified c = classified.get(j);
+            Map<String, Object> result = results.get(c.index());
+            result.put("status", "created");
+            result.put("plainte_id", saved.get(j).getId());
+            result.put("zone", c.zone());
+            result.put("categorie", c.categorie().getNom());
+            result.put("priorite", saved.get(j).getPriorite());
+            result.put("niveau_urgence", c.result().getNiveauUrgence());
+        }
+        return response(results);
+    }
+
+    private String validate(PlainteBatchRequestDTO.Item item) {
+        if (item == null) {
+            return "Plainte vide";
+        }
+        String key = item.getIdempotencyKey();
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return "idempotencyKey requis (" + MAX_KEY_LENGTH + " caractères max)";
+        }
+        if (item.getDescription() == null || item.getDescription().isBlank()) {
+            return "Description requise";
+        }
+        if (item.getLatitude() == null || item.getLongitude() == null) {
+            return "Coordonnées requises";
+        }
+        return null;
+    }
+
+    /**
+     * Marks items whose key is already stored for this user and returns the others.
+     */
+    private List<Integer> withoutExisting(Utilisateur utilisateur, List<PlainteBatchRequestDTO.Item> items,
+                                          List<Integer> indexes, List<Map<String, Object>> results) {
+        if (indexes.isEmpty()) {
+            return indexes;
+        }
+        List<String> keys = indexes.stream().map(i -> items.get(i).getIdempotencyKey()).collect(Collectors.toList());
+        Map<String, Long> existing = plainteRepository.findByUtilisateurAndIdempotencyKeyIn(utilisateur, keys).stream()
+                .collect(Collectors.toMap(Plainte::getIdempotencyKey, Plainte::getId));
+
+        List<Integer> remaining = new ArrayList<>(indexes.size());
+        for (int i : indexes) {
+            Long id = existing.get(items.get(i).getIdempotencyKey());
+            if (id == null) {
+                remaining.add(i);
+            } else {
+                Map<String, Object> result = results.get(i);
+                result.put("status", "already_exists");
+                result.put("plainte_id", id);
+            }
+        }
+        return remaining;
+    }
+
+    private List<Plainte> build(Utilisateur utilisateur, List<PlainteBatchRequestDTO.Item> items,
+                                List<Classified> classified, LocalDateTime now) {
+        List<Plainte> plaintes = new ArrayList<>(classified.size());
+        for (Classified c : classified) {
+            PlainteBatchRequestDTO.Item item = items.get(c.index());
+
+            Plainte plainte = new Plainte();
+            plainte.setDescription(item.getDescription());
+            plainte.setLatitude(item.getLatitude());
+            plainte.setLongitude(item.getLongitude());
+            plainte.setImgUrl(item.getImgUrl());
+            plainte.setDateSoumission(now);
+            plainte.setStatut(StatutPlainte.SOUMISE);
+            plainte.setLocalisation(item.getLocalisation());
+            plainte.setZone(c.zone());
+            plainte.setUtilisateur(utilisateur);
+            plainte.setCategorie(c.categorie());
+            plainte.setPriorite(classificationService.withLocationBonus(
+                    c.result().getPriorite(), item.getLatitude(), item.getLongitude()));
+            plainte.setIdempotencyKey(item.getIdempotencyKey());
+
+            // Persisted through the cascade on Plainte.analyseIA
+            AnalyseIA analyseIA = new AnalyseIA();
+            analyseIA.setFullResponse(c.nlpResponse());
+            analyseIA.setCategoriePrev(c.result().getCategorie());
+            analyseIA.setNiveauUrgence(c.result().getNiveauUrgence());
+            analyseIA.setPriorite(c.result().getPriorite());
+            if (c.result().getScores() != null) {
+                analyseIA.setNLPScore(c.result().getScores());
+            }
+            plainte.setAnalyseIA(analyseIA);
+
+            plaintes.add(plainte);
+        }
+        return plaintes;
+    }
+
+    private String cellKey(double lat, double lon) {
+        return Math.round(lat / geocodeCellDegrees) + ":" + Math.round(lon / geocodeCellDegrees);
+    }
+
+    private void fail(Map<String, Object> result, String error) {
+        result.put("status", "failed");
+        result.put("error", error);
+    }
+
+    private Map<String, Object> response(List<Map<String, Object>> results) {
+        Map<String, Long> summary = results.stream()
+                .collect(Collectors.groupingBy(r -> (String) r.get("status"), TreeMap::new, Collectors.counting()));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("total", results.size());
+        response.put("summary", summary);
+        response.put("results", results);
+        return response;
+    }
+}
@@ -0,0 +1,88 @@
+package com.observatoire.gestion_plaintes.service;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live complaint counts per (statut, zone, catégorie), seeded from the
+ * database at startup and kept current from PlainteEvents.
+ * Lets GET /plaintes report a total without running COUNT(*).
+ */
+@Component
+public class PlainteCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteCounters.class);
+
+    private record CounterKey(StatutPlainte statut, String zone, String categorie) {}
+
+    private final PlainteRepository plainteRepository;
+    private volatile Map<CounterKey, LongAdder> counters = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    public PlainteCounters(PlainteRepository plainteRepository) {
+        this.plainteRepository = plainteRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        try {
+            Map<CounterKey, LongAdder> fresh = new ConcurrentHashMap<>();
+            for (Object[] row : plainteRepository.countByStatutZoneAndCategorie()) {
+                LongAdder adder = new LongAdder();
+                adder.add(((Number) row[3]).longValue());
+                fresh.put(new CounterKey((StatutPlainte) row[0], (String) row[1], (String) row[2]), adder);
+            }
+            counters = fresh;
+            loaded = true;
+            logger.info("Complaint counters loaded: {} (statut, zone, catégorie) combinations", fresh.size());
+        } catch (Exception e) {
+            logger.error("Unable to load complaint counters: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlainteEvent(PlainteEvent event) {
+        if (event.getPrevious() != null) {
+            add(event.getPrevious(), -1);
+        }
+        if (event.getCurrent() != null) {
+            add(event.getCurrent(), 1);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Total for the given filters, null meaning "any".
+     */
+    public long count(StatutPlainte statut, String categorie, String zone) {
+        long total = 0;
+        for (Map.Entry<CounterKey, LongAdder> e : counters.entrySet()) {
+            CounterKey k = e.getKey();
+            if (statut != null && statut != k.statut()) continue;
+            if (categorie != null && !categorie.equals(k.categorie())) continue;
+            if (zone != null && !zone.equals(k.zone())) continue;
+            total += e.getValue().sum();
+        }
+        return Math.max(total, 0);
+    }
+
+    private void add(PlainteSnapshot s, int delta) {
+        CounterKey key = new CounterKey(s.getStatut(), s.getZone(), s.getCategorie());
+        counters.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+    }
+}
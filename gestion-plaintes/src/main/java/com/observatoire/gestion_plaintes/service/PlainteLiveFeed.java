@@ -0,0 +1,297 @@
+package com.observatoire.gestion_plaintes.service;
+
+import com.observatoire.gestion_plaintes.DTOs.AlertDTO;
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events feed for the admin dashboard: plainte-created,
+ * status-changed, alert-raised and stats-delta events, pushed after commit.
+ *
+ * Each subscriber has its own bounded buffer drained by a small pool, so a
+ * slow client never delays the others. When a buffer overflows its pending
+ * events are dropped and replaced by one resync event, telling the client
+ * to reload through the REST endpoints. A client that stops reading blocks
+ * its sender inside emitter.send; once a send has lasted live.send-timeout-ms
+ * the sender is interrupted and the client disconnected, so stalled clients
+ * cannot hold the pool. A heartbeat keeps idle connections open and checks
+ * for stalled sends.
+ */
+@Service
+public class PlainteLiveFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteLiveFeed.class);
+
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final int maxSubscribers;
+    private final long sendTimeoutNanos;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService senders = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "live-feed");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PlainteLiveFeed(@Value("${live.buffer-size:256}") int bufferSize,
+                           @Value("${live.timeout-ms:1800000}") long timeoutMs,
+                           @Value("${live.max-subscribers:200}") int maxSubscribers,
+                           @Value("${live.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+    }
+
+    /**
+     * One queued event; built into an SSE frame per subscriber, since frames are not shareable.
+     * A null name is a heartbeat comment.
+     */
+    private record Outgoing(long id, String name, Object data) {
+
+        SseEmitter.SseEventBuilder toSse() {
+            return name == null
+                    ? SseEmitter.event().comment("heartbeat")
+                    : SseEmitter.event().id(Long.toString(id)).name(name).data(data);
+        }
+    }
+
+    private static final Outgoing HEARTBEAT = new Outgoing(0, null, null);
+
+    private final class Subscriber {
+        final SseEmitter emitter = new SseEmitter(timeoutMs);
+        final String zone;
+        final String category;
+        final ArrayBlockingQueue<Outgoing> buffer = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean draining = new AtomicBoolean();
+        // The sender thread and System.nanoTime() at the start of the send in progress (0 when idle)
+        private Thread sender;
+        private long sendingSince;
+        private volatile boolean aborted;
+
+        Subscriber(String zone, String category) {
+            this.zone = zone;
+            this.category = category;
+        }
+
+        boolean accepts(String zone, String category) {
+            return (this.zone == null || this.zone.equalsIgnoreCase(zone))
+                    && (this.category == null || this.category.equalsIgnoreCase(category));
+        }
+
+        void push(Outgoing event) {
+            if (!buffer.offer(event)) {
+                logger.debug("Live feed buffer full for a subscriber, {} events dropped", buffer.size());
+                buffer.clear();
+                buffer.offer(event("resync", Map.of("reason", "buffer_overflow")));
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Outgoing event;
+                while (!aborted && (event = buffer.poll()) != null) {
+                    startSend();
+                    try {
+                        emitter.send(event.toSse());
+                    } finally {
+                        endSend();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client gone; its completion callback unsubscribes it
+                emitter.completeWithError(e);
+                buffer.clear();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (aborted) {
+                return;
+            }
+            // An event pushed after the last poll but before draining was released
+            if (!buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private synchronized void startSend() {
+            sender = Thread.currentThread();
+            sendingSince = System.nanoTime();
+        }
+
+        private synchronized void endSend() {
+            sender = null;
+            sendingSince = 0;
+        }
+
+        /**
+         * Interrupts a send that has been blocked for longer than the send timeout.
+         * Only called while the send is still in progress, so the right thread is interrupted.
+         */
+        synchronized boolean abortIfStalled(long now) {
+            if (sender == null || now - sendingSince < sendTimeoutNanos) {
+                return false;
+            }
+            aborted = true;
+            sender.interrupt();
+            return true;
+        }
+    }
+
+    /**
+     * Opens a stream for the given filters (null for any); null when the subscriber limit is reached.
+     */
+    public SseEmitter subscribe(String zone, String category) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(zone, category);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.push(event("ready", Map.of("zone", zone != null ? zone : "", "category", category != null ? category : "")));
+        return subscriber.emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlainteEvent(PlainteEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        PlainteSnapshot p = event.getCurrent() != null ? event.getCurrent() : event.getPrevious();
+        if (event.getType() == PlainteEvent.Type.CREATED) {
+            publish("plainte-created", toMap(p), p.getZone(), p.getCategorie());
+        } else if (event.getType() == PlainteEvent.Type.STATUS_CHANGED) {
+            Map<String, Object> data = toMap(p);
+            data.put("previous_statut", event.getPrevious().getStatut());
+            publish("status-changed", data, p.getZone(), p.getCategorie());
+        }
+        publishDeltas(event);
+    }
+
+    @EventListener
+    public void onAlert(AlertDTO alert) {
+        publish("alert-raised", alert, alert.getZone(), alert.getCategory());
+    }
+
+    @Scheduled(fixedDelayString = "${live.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber s : subscribers) {
+            if (s.abortIfStalled(now)) {
+                logger.info("Live feed client not reading for {} ms, disconnected",
+                        TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+                subscribers.remove(s);
+                s.buffer.clear();
+                s.emitter.completeWithError(new IOException("Send timed out"));
+            } else {
+                s.push(HEARTBEAT);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber s : subscribers) {
+            s.emitter.complete();
+        }
+        senders.shutdownNow();
+    }
+
+    private void publish(String name, Object data, String zone, String category) {
+        Outgoing event = null;
+        for (Subscriber s : subscribers) {
+            if (s.accepts(zone, category)) {
+                if (event == null) {
+                    event = event(name, data);
+                }
+                s.push(event);
+            }
+        }
+    }
+
+    /**
+     * Sends each subscriber the deltas of the snapshots it accepts: the -1 of the previous
+     * snapshot under its zone and catégorie, the +1 of the current one under its own, so a
+     * reclassified complaint leaves the counts of a stream filtered on its old values.
+     */
+    private void publishDeltas(PlainteEvent event) {
+        PlainteSnapshot previous = event.getPrevious();
+        PlainteSnapshot current = event.getCurrent();
+        // Indexed by which deltas a subscriber gets: 1 the previous one, 2 the current one
+        Outgoing[] events = new Outgoing[4];
+        for (Subscriber s : subscribers) {
+            int which = (previous != null && s.accepts(previous.getZone(), previous.getCategorie()) ? 1 : 0)
+                    | (current != null && s.accepts(current.getZone(), current.getCategorie()) ? 2 : 0);
+            if (which == 0) continue;
+            if (events[which] == null) {
+                List<Map<String, Object>> deltas = new ArrayList<>(2);
+                if ((which & 1) != 0) {
+                    deltas.add(delta(previous, -1));
+                }
+                if ((which & 2) != 0) {
+                    deltas.add(delta(current, 1));
+                }
+                events[which] = event("stats-delta", Map.of("type", event.getType(), "deltas", deltas));
+            }
+            s.push(events[which]);
+        }
+    }
+
+    private Outgoing event(String name, Object data) {
+        return new Outgoing(sequence.incrementAndGet(), name, data);
+    }
+
+    private static Map<String, Object> toMap(PlainteSnapshot p) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", p.getId());
+        data.put("zone", p.getZone());
+        data.put("categorie", p.getCategorie());
+        data.put("statut", p.getStatut());
+        data.put("priorite", p.getPriorite());
+        data.put("date_soumission", p.getDateSoumission());
+        return data;
+    }
+
+    private static Map<String, Object> delta(PlainteSnapshot p, int delta) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("zone", p.getZone());
+        data.put("categorie", p.getCategorie());
+        data.put("statut", p.getStatut());
+        data.put("delta", delta);
+        return data;
+    }
+}
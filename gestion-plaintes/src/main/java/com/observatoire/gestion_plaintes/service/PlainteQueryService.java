@@ -0,0 +1,145 @@
+package com.observatoire.gestion_plaintes.service;
+
+import com.observatoire.gestion_plaintes.DTOs.Response.PageResponseDTO;
+import com.observatoire.gestion_plaintes.model.Plainte;
+import com.observatoire.gestion_plaintes.repository.PlainteField;
+import com.observatoire.gestion_plaintes.repository.PlainteFilter;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Paged complaint listing with a selectable counting strategy.
+ * The exact COUNT(*) repeats every join and LIKE of the data query, so
+ * callers that only need "page 3 of many" can pick something cheaper.
+ */
+@Service
+public class PlainteQueryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteQueryService.class);
+
+    private final PlainteRepository plainteRepository;
+    private final PlainteCounters plainteCounters;
+
+    @Value("${plaintes.count.cap:10000}")
+    private long countCap;
+
+    public PlainteQueryService(PlainteRepository plainteRepository, PlainteCounters plainteCounters) {
+        this.plainteRepository = plainteRepository;
+        this.plainteCounters = plainteCounters;
+    }
+
+    public PageResponseDTO<Plainte> findPage(PlainteFilter filter, Pageable pageable, CountMode mode) {
+        Specification<Plainte> spec = filter.toSpecification();
+        return withTotal(plainteRepository.findSlice(spec, pageable), filter, spec, pageable, mode);
+    }
+
+    /**
+     * Sparse fieldset listing: only the requested columns are selected.
+     */
+    public PageResponseDTO<Map<String, Object>> findFieldsPage(PlainteFilter filter, List<PlainteField> fields,
+                                                               Pageable pageable, CountMode mode) {
+        Specification<Plainte> spec = filter.toSpecification();
+        return withTotal(plainteRepository.findProjectedSlice(spec, fields, pageable), filter, spec, pageable, mode);
+    }
+
+    /**
+     * Sparse fieldset for a single complaint, null when the id is unknown.
+     */
+    public Map<String, Object> findFieldsById(Long id, List<PlainteField> fields) {
+        Specification<Plainte> byId = (r, q, cb) -> cb.equal(r.get("id"), id);
+        Slice<Map<String, Object>> slice = plainteRepository.findProjectedSlice(byId, fields, PageRequest.of(0, 1));
+        return slice.hasContent() ? slice.getContent().get(0) : null;
+    }
+
+    private <T> PageResponseDTO<T> withTotal(Slice<T> slice, PlainteFilter filter, Specification<Plainte> spec,
+                                             Pageable pageable, CountMode mode) {
+        PageResponseDTO<T> response = PageResponseDTO.of(slice);
+
+        if (mode == CountMode.NONE) {
+            response.setCountMode(label(mode));
+            return response;
+        }
+
+        // Last page reached: the total is known without any count query
+        long seen = pageable.getOffset() + slice.getNumberOfElements();
+        if (!slice.hasNext() && (slice.hasContent() || pageable.getOffset() == 0)) {
+            response.setTotal(seen, true, String.valueOf(seen));
+            response.setCountMode(label(mode));
+            return response;
+        }
+
+        CountMode used = resolve(mode, filter);
+        // Rows already proven to exist; a page requested past the end proves nothing
+        long lowerBound = slice.hasNext() ? seen + 1 : (slice.hasContent() ? seen : 0);
+
+        switch (used) {
+            case COUNTERS -> {
+                long total = Math.max(lowerBound, plainteCounters.count(
+                        filter.getStatus(), filter.getCategory(), filter.getCommune()));
+                response.setTotal(total, true, String.valueOf(total));
+            }
+            case ESTIMATED -> {
+                Long estimate = estimate(filter);
+                if (estimate == null) {
+                    used = CountMode.CAPPED;
+                    setCappedTotal(response, spec, lowerBound);
+                } else {
+                    long total = Math.max(lowerBound, estimate);
+                    response.setTotal(total, false, "~" + total);
+                }
+            }
+            case CAPPED -> setCappedTotal(response, spec, lowerBound);
+            default -> {
+                long total = plainteRepository.count(spec);
+                response.setTotal(total, true, String.valueOf(total));
+            }
+        }
+
+        response.setCountMode(label(used));
+        return response;
+    }
+
+    /**
+     * Counters cannot answer free-text search, and are unusable until loaded.
+     */
+    private CountMode resolve(CountMode mode, PlainteFilter filter) {
+        if (mode == CountMode.COUNTERS && (filter.hasTextQuery() || !plainteCounters.isLoaded())) {
+            return CountMode.CAPPED;
+        }
+        return mode;
+    }
+
+    private Long estimate(PlainteFilter filter) {
+        try {
+            return plainteRepository.estimateCount(filter);
+        } catch (Exception e) {
+            logger.warn("Planner estimate unavailable, falling back to capped count: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void setCappedTotal(PageResponseDTO<?> response, Specification<Plainte> spec, long lowerBound) {
+        long counted = plainteRepository.countUpTo(spec, countCap);
+        if (counted > countCap) {
+            response.setTotal(countCap, false, String.format(Locale.US, "%,d+", countCap));
+        } else {
+            long total = Math.max(lowerBound, counted);
+            response.setTotal(total, true, String.valueOf(total));
+        }
+    }
+
+    private String label(CountMode mode) {
+        return mode.name().toLowerCase();
+    }
+}
@@ -1,16 +1,27 @@
 package com.observatoire.gestion_plaintes.service;
 
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.model.Categorie;
 import com.observatoire.gestion_plaintes.model.Plainte;
 import com.observatoire.gestion_plaintes.model.StatutPlainte;
 import com.observatoire.gestion_plaintes.model.Utilisateur;
 import com.observatoire.gestion_plaintes.repository.PlainteRepository;
 import com.observatoire.gestion_plaintes.repository.UtilisateurRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PlainteService {
@@ -19,11 +30,31 @@ public class PlainteService {
     private PlainteRepository plainteRepository;
     @Autowired
     private UtilisateurRepository userRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     public Plainte getPlainteById(Long id) {
         return plainteRepository.findById(id).orElse(null);
     }
 
+    /**
+     * Load several complaints in one query, in the order the ids were given.
+     * Duplicate ids are collapsed; unknown ids are simply absent from the result.
+     */
+    public List<Plainte> getPlaintesByIds(Collection<Long> ids) {
+        Map<Long, Plainte> byId = plainteRepository.findAllWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Plainte::getId, Function.identity()));
+
+        List<Plainte> ordered = new ArrayList<>(byId.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Plainte p = byId.get(id);
+            if (p != null) {
+                ordered.add(p);
+            }
+        }
+        return ordered;
+    }
+
     public List<Plainte> getPlaintesByUser(){
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String email = auth.getName();
@@ -32,10 +63,65 @@ public class PlainteService {
         return plainteRepository.findByUtilisateur(user);
     }
 
+    /**
+     * Persist a new complaint and notify the aggregates.
+     * The hourly rollup is updated in the same transaction, in-memory indexes after commit.
+     */
+    @Transactional
+    public Plainte enregistrer(Plainte plainte) {
+        Plainte saved = plainteRepository.save(plainte);
+        eventPublisher.publishEvent(PlainteEvent.created(PlainteSnapshot.of(saved)));
+        return saved;
+    }
+
+    /**
+     * Persist several new complaints in a single transaction.
+     * Events are delivered to the aggregates once the transaction commits.
+     */
+    @Transactional
+    public List<Plainte> enregistrerTous(List<Plainte> plaintes) {
+        List<Plainte> saved = plainteRepository.saveAll(plaintes);
+        for (Plainte p : saved) {
+            eventPublisher.publishEvent(PlainteEvent.created(PlainteSnapshot.of(p)));
+        }
+        return saved;
+    }
+
+    @Transactional
     public Plainte updateStatus(Long id, StatutPlainte newStatus) {
         Plainte p = getPlainteById(id);
+        PlainteSnapshot previous = PlainteSnapshot.of(p);
         p.setStatut(newStatus);
-        return plainteRepository.save(p);
+        Plainte saved = plainteRepository.save(p);
+        eventPublisher.publishEvent(new PlainteEvent(
+                PlainteEvent.Type.STATUS_CHANGED, previous, PlainteSnapshot.of(saved)));
+        return saved;
+    }
+
+    @Transactional
+    public Plainte reclassifier(Plainte p, Categorie categorie, Integer priorite) {
+        PlainteSnapshot previous = PlainteSnapshot.of(p);
+        p.setCategorie(categorie);
+        p.setPriorite(priorite);
+        Plainte saved = plainteRepository.save(p);
+        eventPublisher.publishEvent(new PlainteEvent(
+                PlainteEvent.Type.RECLASSIFIED, previous, PlainteSnapshot.of(saved)));
+        return saved;
+    }
+
+    /**
+     * @return false when no complaint has this id
+     */
+    @Transactional
+    public boolean supprimer(Long id) {
+        Plainte p = getPlainteById(id);
+        if (p == null) {
+            return false;
+        }
+        PlainteSnapshot previous = PlainteSnapshot.of(p);
+        plainteRepository.delete(p);
+        eventPublisher.publishEvent(PlainteEvent.deleted(previous));
+        return true;
     }
 
 
@@ -1,5 +1,14 @@
 package com.observatoire.gestion_plaintes.stats;
 
+import com.observatoire.gestion_plaintes.DTOs.AlertDTO;
+import com.observatoire.gestion_plaintes.config.BinaryFormatsConfig;
+import com.observatoire.gestion_plaintes.geo.GeoPolygon;
+import com.observatoire.gestion_plaintes.geo.GeoUtils;
+import com.observatoire.gestion_plaintes.geo.PlainteClusterIndex;
+import com.observatoire.gestion_plaintes.geo.PlainteHeatmapIndex;
+import com.observatoire.gestion_plaintes.geo.PlainteHotspotIndex;
+import com.observatoire.gestion_plaintes.geo.PolygonAggregator;
+import com.observatoire.gestion_plaintes.geo.SpatialFilter;
 import com.observatoire.gestion_plaintes.model.StatutPlainte;
 import com.observatoire.gestion_plaintes.repository.PlainteRepository;
 import com.observatoire.gestion_plaintes.stats.DTOs.CommuneStats;
@@ -8,11 +17,25 @@ import com.observatoire.gestion_plaintes.stats.DTOs.FrequencyStats.FrequencyStat
 import com.observatoire.gestion_plaintes.stats.DTOs.HoraireStats;
 import com.observatoire.gestion_plaintes.stats.DTOs.ResolutionRate;
 import com.observatoire.gestion_plaintes.stats.DTOs.TrendStats.TrendStats;
-import com.observatoire.gestion_plaintes.stats.DTOs.FrequencyStats.ZoneCategoryCount;
 
+import com.observatoire.gestion_plaintes.stats.serivce.PlainteAlertDetector;
+import com.observatoire.gestion_plaintes.stats.serivce.PlainteDaySnapshots;
+import com.observatoire.gestion_plaintes.stats.serivce.PlainteDistinctCounts;
+import com.observatoire.gestion_plaintes.stats.serivce.PlainteHeavyHitters;
+import com.observatoire.gestion_plaintes.stats.serivce.PlainteRollupService;
+import com.observatoire.gestion_plaintes.stats.serivce.PlainteStatsBucketCache;
+import com.observatoire.gestion_plaintes.stats.serivce.PlainteStatsCube;
+import com.observatoire.gestion_plaintes.stats.serivce.PlainteStatsViews;
+import com.observatoire.gestion_plaintes.stats.serivce.DurationSketch;
+import com.observatoire.gestion_plaintes.stats.serivce.ResolutionTimeService;
+import com.observatoire.gestion_plaintes.stats.serivce.SpaceSavingSummary;
 import com.observatoire.gestion_plaintes.stats.serivce.StatistiquesService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
@@ -29,6 +52,11 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.time.DayOfWeek;
+import java.time.temporal.ChronoUnit;
+import java.time.format.TextStyle;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/stats")
@@ -37,16 +65,66 @@ public class StatistiquesController {
     private final StatistiquesService statistiquesService;
 
     private final PlainteRepository plainteRepository;
+    private final PlainteClusterIndex plainteClusterIndex;
+    private final PlainteHeatmapIndex plainteHeatmapIndex;
+    private final PolygonAggregator polygonAggregator;
+    private final PlainteHotspotIndex plainteHotspotIndex;
+    private final PlainteRollupService plainteRollupService;
+    private final PlainteStatsBucketCache plainteStatsBucketCache;
+    private final PlainteStatsCube plainteStatsCube;
+    private final PlainteStatsViews plainteStatsViews;
+    private final PlainteAlertDetector plainteAlertDetector;
+    private final ResolutionTimeService resolutionTimeService;
+    private final PlainteHeavyHitters plainteHeavyHitters;
+    private final PlainteDistinctCounts plainteDistinctCounts;
+    private final PlainteDaySnapshots plainteDaySnapshots;
     private static final Logger logger = LoggerFactory.getLogger(StatistiquesController.class);
 
+    @Value("${stats.dashboard.max-age-seconds:30}")
+    private long dashboardMaxAgeSeconds;
 
+    @Value("${stats.timeseries.max-buckets:2000}")
+    private int timeseriesMaxBuckets;
 
-    public StatistiquesController(StatistiquesService statistiquesService, PlainteRepository plainteRepository) {
+    @Value("${geo.polygon.max-cells:40000}")
+    private long polygonMaxCells;
+
+    // Bucket sizes accepted by /timeseries, in minutes
+    private static final Map<String, Integer> TIMESERIES_BUCKETS = Map.of(
+            "15m", 15, "1h", 60, "1d", 24 * 60, "1w", 7 * 24 * 60);
+
+
+
+    public StatistiquesController(StatistiquesService statistiquesService, PlainteRepository plainteRepository,
+                                  PlainteClusterIndex plainteClusterIndex, PlainteHeatmapIndex plainteHeatmapIndex,
+                                  PolygonAggregator polygonAggregator, PlainteHotspotIndex plainteHotspotIndex,
+                                  PlainteRollupService plainteRollupService,
+                                  PlainteStatsBucketCache plainteStatsBucketCache,
+                                  PlainteStatsCube plainteStatsCube, PlainteStatsViews plainteStatsViews,
+                                  PlainteAlertDetector plainteAlertDetector,
+                                  ResolutionTimeService resolutionTimeService,
+                                  PlainteHeavyHitters plainteHeavyHitters,
+                                  PlainteDistinctCounts plainteDistinctCounts,
+                                  PlainteDaySnapshots plainteDaySnapshots) {
         this.statistiquesService = statistiquesService;
         this.plainteRepository = plainteRepository;
+        this.plainteClusterIndex = plainteClusterIndex;
+        this.plainteHeatmapIndex = plainteHeatmapIndex;
+        this.polygonAggregator = polygonAggregator;
+        this.plainteHotspotIndex = plainteHotspotIndex;
+        this.plainteRollupService = plainteRollupService;
+        this.plainteStatsBucketCache = plainteStatsBucketCache;
+        this.plainteStatsCube = plainteStatsCube;
+        this.plainteStatsViews = plainteStatsViews;
+        this.plainteAlertDetector = plainteAlertDetector;
+        this.resolutionTimeService = resolutionTimeService;
+        this.plainteHeavyHitters = plainteHeavyHitters;
+        this.plainteDistinctCounts = plainteDistinctCounts;
+        this.plainteDaySnapshots = plainteDaySnapshots;
     }
 
-    @GetMapping("/frequency")
+    @GetMapping(value = "/frequency",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormatsConfig.SMILE_VALUE})
     public ResponseEntity<FrequencyStats> getFrequencyStats(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
@@ -88,7 +166,128 @@ public class StatistiquesController {
         return ResponseEntity.ok(stats);
     }
 
-    @GetMapping("/communes")
+    /**
+     * Most frequent communes, catégories, reporters (signaleur) or grid cells (cellule) among
+     * complaints submitted on the days of [from, to]. Each count is within error of the true one,
+     * and min_count is a lower bound.
+     */
+    @GetMapping("/top")
+    public ResponseEntity<Map<String, Object>> getTop(
+            @RequestParam(defaultValue = "commune") String dimension,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        PlainteHeavyHitters.Dimension dim;
+        try {
+            dim = PlainteHeavyHitters.Dimension.valueOf(dimension.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Dimension inconnue: " + dimension));
+        }
+        if (!plainteHeavyHitters.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Classements en cours de chargement"));
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(6);
+        if (!plainteHeavyHitters.covers(start)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Période hors de la fenêtre conservée"));
+        }
+
+        SpaceSavingSummary summary = plainteHeavyHitters.summary(dim, start, end);
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (SpaceSavingSummary.Entry e : summary.top(Math.max(1, limit))) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("count", e.count());
+            item.put("min_count", e.guaranteed());
+            item.put("error", e.error());
+            if (dim == PlainteHeavyHitters.Dimension.CELLULE) {
+                long cell = Long.parseLong(e.key());
+                double size = plainteHeavyHitters.getCellDegrees();
+                item.put("latitude", (GeoUtils.cellRow(cell) + 0.5) * size - 90.0);
+                item.put("longitude", (GeoUtils.cellCol(cell) + 0.5) * size - 180.0);
+            } else {
+                item.put("key", e.key());
+            }
+            items.add(item);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("dimension", dim.name().toLowerCase());
+        response.put("from", start);
+        response.put("to", end);
+        response.put("total", summary.getTotal());
+        response.put("max_error", summary.maxError());
+        response.put("items", items);
+        if (dim == PlainteHeavyHitters.Dimension.CELLULE) {
+            response.put("cell_size_deg", plainteHeavyHitters.getCellDegrees());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Approximate distinct counts over the days of [from, to]: reporters (signaleurs) of a zone,
+     * or zones affected by a catégorie; without zone or category, across all of them.
+     */
+    @GetMapping("/distinct/{what}")
+    public ResponseEntity<Map<String, Object>> getDistinct(
+            @PathVariable String what,
+            @RequestParam(required = false) String zone,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        PlainteDistinctCounts.Dimension dimension;
+        String cle;
+        switch (what) {
+            case "signaleurs" -> {
+                dimension = PlainteDistinctCounts.Dimension.ZONE;
+                cle = zone;
+            }
+            case "zones" -> {
+                dimension = PlainteDistinctCounts.Dimension.CATEGORIE;
+                cle = category;
+            }
+            default -> {
+                return ResponseEntity.badRequest().body(Map.of("error", "Mesure inconnue: " + what));
+            }
+        }
+        if (!plainteDistinctCounts.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Comptages distincts en cours de chargement"));
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+
+        PlainteDistinctCounts.Estimate estimate = plainteDistinctCounts.estimate(
+                dimension, cle != null && !cle.isBlank() ? cle : null, start, end);
+        Map<String, Object> response = new HashMap<>();
+        response.put("measure", what);
+        response.put("zone", zone);
+        response.put("category", category);
+        response.put("from", start);
+        response.put("to", end);
+        response.put("estimate", estimate.value());
+        response.put("standard_error", estimate.standardError());
+        response.put("sketches_merged", estimate.sketches());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Recomputes the distinct count sketches from the complaints table, to drop
+     * what deleted or reclassified complaints left behind.
+     */
+    @PostMapping("/distinct/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDistinct() {
+        long start = System.currentTimeMillis();
+        plainteDistinctCounts.rebuild();
+        Map<String, Object> response = new HashMap<>();
+        response.put("duration_ms", System.currentTimeMillis() - start);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(value = "/communes",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormatsConfig.SMILE_VALUE})
     public ResponseEntity<CommuneStatsResponse> getCommuneStats(
             @RequestParam(value = "since", required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
@@ -98,7 +297,341 @@ public class StatistiquesController {
         return ResponseEntity.ok(statistiquesService.getCommuneStats(ref));
     }
 
-    @GetMapping("/resolution")
+    /**
+     * Map clusters for a zoom level and viewport: centroid, count, dominant category and max priority.
+     * A cluster of one complaint also carries its plainte_id.
+     */
+    @GetMapping("/clusters")
+    public ResponseEntity<Map<String, Object>> getClusters(
+            @RequestParam int zoom,
+            @RequestParam double south,
+            @RequestParam double west,
+            @RequestParam double north,
+            @RequestParam double east) {
+
+        if (south > north || west > east || south < -90 || north > 90 || west < -180 || east > 180 || zoom < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Zoom ou emprise invalide"));
+        }
+        if (!plainteClusterIndex.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Index des clusters en cours de chargement"));
+        }
+
+        List<Map<String, Object>> clusters = plainteClusterIndex.clusters(zoom, south, west, north, east);
+        Map<String, Object> response = new HashMap<>();
+        response.put("zoom", Math.min(zoom, plainteClusterIndex.getMaxZoom()));
+        response.put("clusters", clusters);
+        response.put("count", clusters.size());
+        response.put("total_plaintes", clusters.stream().mapToLong(c -> (Integer) c.get("count")).sum());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Density grid over [from, to] (days, inclusive), summed from per-day cell counters.
+     * cells holds [row, col, count] with row = floor((lat + 90) / cell_size_deg)
+     * and col = floor((lon + 180) / cell_size_deg).
+     */
+    @GetMapping("/heatmap")
+    public ResponseEntity<Map<String, Object>> getHeatmap(
+            @RequestParam(defaultValue = "2") int resolution,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) StatutPlainte status,
+            @RequestParam(required = false) Double south,
+            @RequestParam(required = false) Double west,
+            @RequestParam(required = false) Double north,
+            @RequestParam(required = false) Double east) {
+
+        if (resolution < 0 || resolution >= plainteHeatmapIndex.getResolutions()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Résolution invalide",
+                    "resolutions", plainteHeatmapIndex.getResolutions()));
+        }
+        if (!plainteHeatmapIndex.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Heatmap en cours de chargement"));
+        }
+
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        double[] bbox = south != null && west != null && north != null && east != null
+                ? new double[]{south, west, north, east} : null;
+
+        Map<Long, Long> counts = plainteHeatmapIndex.counts(resolution, start, end,
+                category != null && !category.isBlank() ? category : null, status, bbox);
+
+        List<long[]> cells = new ArrayList<>(counts.size());
+        long total = 0;
+        long max = 0;
+        for (Map.Entry<Long, Long> e : counts.entrySet()) {
+            cells.add(new long[]{GeoUtils.cellRow(e.getKey()), GeoUtils.cellCol(e.getKey()), e.getValue()});
+            total += e.getValue();
+            max = Math.max(max, e.getValue());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("resolution", resolution);
+        response.put("cell_size_deg", plainteHeatmapIndex.cellDegrees(resolution));
+        response.put("from", start);
+        response.put("to", end);
+        response.put("cells", cells);
+        response.put("total", total);
+        response.put("max", max);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Aggregates of the complaints inside a GeoJSON Polygon / MultiPolygon (geometry or Feature)
+     * submitted between from and to, last 30 days by default.
+     */
+    @PostMapping("/polygon")
+    public ResponseEntity<Map<String, Object>> getPolygonStats(
+            @RequestBody Map<String, Object> geoJson,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) StatutPlainte status,
+            @RequestParam(required = false) String category) {
+
+        GeoPolygon polygon;
+        try {
+            polygon = GeoPolygon.fromGeoJson(geoJson);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (polygonAggregator.bboxCells(polygon) > polygonMaxCells) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Polygone trop étendu",
+                    "max_cells", polygonMaxCells));
+        }
+        if (!polygonAggregator.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Index spatial en cours de chargement"));
+        }
+
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        Map<String, Object> stats = polygonAggregator.aggregate(polygon, new SpatialFilter(status, category, start, end));
+        stats.put("from", start);
+        stats.put("to", end);
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Places where complaints are concentrating over the last geo.hotspots.window-hours:
+     * adjacent cells with at least minCellCount reports each, totalling minCount or more.
+     */
+    @GetMapping("/hotspots")
+    public ResponseEntity<Map<String, Object>> getHotspots(
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "3") int minCellCount,
+            @RequestParam(defaultValue = "20") int minCount) {
+
+        if (minCellCount < 1 || minCount < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Seuils invalides"));
+        }
+        if (!plainteHotspotIndex.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Index des points chauds en cours de chargement"));
+        }
+
+        List<Map<String, Object>> hotspots = plainteHotspotIndex.hotspots(
+                category != null && !category.isBlank() ? category : null, minCellCount, minCount);
+        Map<String, Object> response = new HashMap<>();
+        response.put("window_hours", plainteHotspotIndex.getWindowHours());
+        response.put("cell_size_deg", plainteHotspotIndex.getCellDegrees());
+        response.put("hotspots", hotspots);
+        response.put("count", hotspots.size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Recomputes plainte_rollup_hourly from the complaints table, to reconcile it after
+     * writes that bypassed PlainteService (manual SQL, restored dumps), then refreezes
+     * the daily snapshots taken from it.
+     */
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRollup() {
+        long start = System.currentTimeMillis();
+        int rows = plainteRollupService.rebuild();
+        int frozenDays = plainteDaySnapshots.refreezeAll();
+        plainteStatsBucketCache.invalidateAll();
+        Map<String, Object> response = new HashMap<>();
+        response.put("rows", rows);
+        response.put("frozen_days", frozenDays);
+        response.put("duration_ms", System.currentTimeMillis() - start);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Freezes (or refreezes) the daily statistic snapshots of the closed days of [from, to].
+     */
+    @PostMapping("/snapshots/freeze")
+    public ResponseEntity<Map<String, Object>> freezeSnapshots(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        LocalDate end = to != null ? to : LocalDate.now().minusDays(1);
+        if (from.isAfter(end)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "La date de début doit précéder la date de fin"));
+        }
+        if (!plainteDaySnapshots.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Instantanés journaliers en cours de chargement"));
+        }
+        long start = System.currentTimeMillis();
+        int days = plainteDaySnapshots.freeze(from, end);
+        plainteStatsBucketCache.invalidateAll();
+        Map<String, Object> response = new HashMap<>();
+        response.put("frozen_days", days);
+        response.put("total_frozen_days", plainteDaySnapshots.getFrozenDays());
+        response.put("duration_ms", System.currentTimeMillis() - start);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Time from submission to the first EN_COURS and to the first RESOLUE, for status changes made in [from, to].
+     */
+    @GetMapping("/resolution-time")
+    public ResponseEntity<Map<String, Object>> getResolutionTime(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String zone,
+            @RequestParam(required = false) String category) {
+
+        if (!resolutionTimeService.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Délais de traitement en cours de chargement"));
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+
+        Map<StatutPlainte, DurationSketch> sketches = resolutionTimeService.sketches(start, end,
+                zone != null && !zone.isBlank() ? zone : null,
+                category != null && !category.isBlank() ? category : null);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("from", start);
+        response.put("to", end);
+        response.put("zone", zone);
+        response.put("category", category);
+        sketches.forEach((statut, sketch) -> {
+            Map<String, Object> quantiles = new HashMap<>();
+            quantiles.put("count", sketch.getCount());
+            quantiles.put("p50_hours", hours(sketch.quantile(0.5)));
+            quantiles.put("p90_hours", hours(sketch.quantile(0.9)));
+            quantiles.put("p99_hours", hours(sketch.quantile(0.99)));
+            response.put(statut.name().toLowerCase(), quantiles);
+        });
+        response.put("relative_error", sketches.values().iterator().next().getRelativeError());
+        return ResponseEntity.ok(response);
+    }
+
+    private static Double hours(double minutes) {
+        return Double.isNaN(minutes) ? null : Math.round(minutes / 6.0) / 10.0;
+    }
+
+    @GetMapping("/alerts/summary")
+    public ResponseEntity<?> getAlertSummary() {
+        if (!plainteAlertDetector.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Détecteur d'alertes en cours de chargement"));
+        }
+        return ResponseEntity.ok(plainteAlertDetector.summary());
+    }
+
+    @GetMapping("/alerts")
+    public ResponseEntity<Map<String, Object>> getAlerts(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(required = false) String severity,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (!plainteAlertDetector.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Détecteur d'alertes en cours de chargement"));
+        }
+        List<AlertDTO> alerts = plainteAlertDetector.alerts(LocalDateTime.now().minusHours(hours),
+                severity != null && !severity.isBlank() ? severity : null, Math.max(1, limit));
+        Map<String, Object> response = new HashMap<>();
+        response.put("alerts", alerts);
+        response.put("count", alerts.size());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/analytics/zones")
+    public ResponseEntity<Map<String, Object>> getZonePerformance(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        return fromViews(() -> plainteRepository.getZonePerformanceStats(start.atStartOfDay(), end.atStartOfDay()),
+                "zone", "total_plaintes", "resolues", "taux_resolution", "avg_resolution_hours",
+                "high_priority", "categories_count");
+    }
+
+    @GetMapping("/analytics/anomalies")
+    public ResponseEntity<Map<String, Object>> getDailyAnomalies(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        return fromViews(() -> plainteRepository.detectDataAnomalies(start.atStartOfDay(), end.atStartOfDay()),
+                "date", "zone", "daily_count", "avg_daily", "stddev_daily", "anomaly_status");
+    }
+
+    @GetMapping("/analytics/trending")
+    public ResponseEntity<Map<String, Object>> getTrendingCategories(@RequestParam(defaultValue = "30") int days) {
+        if (days < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Le nombre de jours doit être positif"));
+        }
+        // Both periods span days calendar days, the current one ending today
+        LocalDateTime currentStart = LocalDate.now().minusDays(days - 1).atStartOfDay();
+        return fromViews(() -> plainteRepository.getTrendingCategories(currentStart, currentStart.minusDays(days)),
+                "category", "current_count", "previous_count", "percentage_change");
+    }
+
+    @GetMapping("/analytics/detailed")
+    public ResponseEntity<Map<String, Object>> getDetailedAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        return fromViews(() -> plainteRepository.getDetailedStats(start.atStartOfDay(), end.atStartOfDay()),
+                "zone", "categorie", "total", "resolues", "en_cours", "soumises", "rejetees",
+                "avg_priority", "first_complaint", "last_complaint");
+    }
+
+    /**
+     * Refreshes the materialized view behind /stats/analytics/* without waiting for the schedule.
+     */
+    @PostMapping("/analytics/refresh")
+    public ResponseEntity<Map<String, Object>> refreshAnalytics() {
+        plainteStatsViews.refresh();
+        return ResponseEntity.ok(plainteStatsViews.freshness());
+    }
+
+    private ResponseEntity<Map<String, Object>> fromViews(Supplier<List<Object[]>> query,
+                                                          String... columns) {
+        if (!plainteStatsViews.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Vues statistiques en cours de chargement"));
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Object[] r : query.get()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                row.put(columns[i], r[i]);
+            }
+            rows.add(row);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("rows", rows);
+        response.put("count", rows.size());
+        response.put("freshness", plainteStatsViews.freshness());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(value = "/resolution",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormatsConfig.SMILE_VALUE})
     public ResponseEntity<List<ResolutionRate>> getResolutionRates(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
@@ -144,6 +677,129 @@ public class StatistiquesController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Complaint counts as a dense time series of 15m, 1h, 1d or 1w buckets (weeks start on Monday),
+     * optionally split by zone, categorie or statut and filtered on each. Columnar: one timestamp
+     * per bucket and, per group, one count per bucket. Served from the stats cube's quarter-hours.
+     */
+    @GetMapping("/timeseries")
+    public ResponseEntity<Map<String, Object>> getTimeSeries(
+            @RequestParam(defaultValue = "1h") String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(name = "group_by", defaultValue = "none") String groupBy,
+            @RequestParam(required = false) String zone,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String statut) {
+
+        Integer bucketMinutes = TIMESERIES_BUCKETS.get(bucket);
+        if (bucketMinutes == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Pas de temps inconnu: " + bucket));
+        }
+        PlainteStatsCube.SeriesGroup group;
+        StatutPlainte statutFilter = null;
+        try {
+            group = PlainteStatsCube.SeriesGroup.valueOf(groupBy.toUpperCase());
+            if (statut != null && !statut.isBlank()) {
+                statutFilter = StatutPlainte.valueOf(statut.toUpperCase());
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Regroupement ou statut inconnu"));
+        }
+        if (!plainteStatsCube.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Statistiques en cours de chargement"));
+        }
+
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime begin = from != null ? from : end.minusMinutes(48L * bucketMinutes);
+        if (begin.isAfter(end)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "La date de début doit précéder la date de fin"));
+        }
+        // First bucket: the one containing begin
+        LocalDateTime start = switch (bucket) {
+            case "15m" -> begin.truncatedTo(ChronoUnit.HOURS).plusMinutes(begin.getMinute() / 15 * 15L);
+            case "1h" -> begin.truncatedTo(ChronoUnit.HOURS);
+            case "1d" -> begin.toLocalDate().atStartOfDay();
+            default -> begin.toLocalDate().with(DayOfWeek.MONDAY).atStartOfDay();
+        };
+        long buckets = ChronoUnit.MINUTES.between(start, end) / bucketMinutes + 1;
+        if (buckets > timeseriesMaxBuckets) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "Trop de points (" + buckets + "), maximum " + timeseriesMaxBuckets + ": élargir le pas de temps"));
+        }
+
+        Map<String, long[]> series = plainteStatsCube.series(start, bucketMinutes, (int) buckets, begin, end, group,
+                zone != null && !zone.isBlank() ? zone : null,
+                category != null && !category.isBlank() ? category : null,
+                statutFilter);
+        if (group == PlainteStatsCube.SeriesGroup.NONE && series.isEmpty()) {
+            series = Map.of("total", new long[(int) buckets]);
+        }
+
+        List<LocalDateTime> timestamps = new ArrayList<>((int) buckets);
+        for (int i = 0; i < buckets; i++) {
+            timestamps.add(start.plusMinutes((long) i * bucketMinutes));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("bucket", bucket);
+        response.put("from", begin);
+        response.put("to", end);
+        response.put("group_by", group.name().toLowerCase());
+        response.put("zone", zone);
+        response.put("category", category);
+        response.put("statut", statutFilter);
+        response.put("timestamps", timestamps);
+        response.put("series", new TreeMap<>(series));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Hour-of-week activity matrix: one row per day of week (Monday first), 24 hourly counts each.
+     */
+    @GetMapping("/horaire/semaine")
+    public ResponseEntity<Map<String, Object>> getHoraireSemaine(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String zone,
+            @RequestParam(required = false) String category) {
+
+        if (!plainteStatsCube.isLoaded()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Statistiques en cours de chargement"));
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "La date de début doit précéder la date de fin"));
+        }
+
+        long[] counts = plainteStatsCube.countByHourOfWeek(from, to,
+                zone != null && !zone.isBlank() ? zone : null,
+                category != null && !category.isBlank() ? category : null);
+
+        List<Map<String, Object>> jours = new ArrayList<>(7);
+        long total = 0;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            long[] heures = Arrays.copyOfRange(counts, (day.getValue() - 1) * 24, day.getValue() * 24);
+            long dayTotal = Arrays.stream(heures).sum();
+            Map<String, Object> jour = new HashMap<>();
+            jour.put("jour", day.getDisplayName(TextStyle.FULL, Locale.FRENCH));
+            jour.put("heures", heures);
+            jour.put("total", dayTotal);
+            jours.add(jour);
+            total += dayTotal;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("from", from);
+        response.put("to", to);
+        response.put("zone", zone);
+        response.put("category", category);
+        response.put("jours", jours);
+        response.put("total", total);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getDashboardStats(
             @RequestParam(required = false)
@@ -151,35 +807,13 @@ public class StatistiquesController {
             LocalDate referenceDate) {
 
         LocalDate date = referenceDate != null ? referenceDate : LocalDate.now();
-        LocalDateTime end = date.atTime(23, 59, 59);
-        LocalDateTime start = date.minusDays(30).atStartOfDay();
-
-        // Current period
-        FrequencyStats freqCurrent = statistiquesService.getFrequencyStats(start, end);
-
-        // Previous period
-        LocalDateTime prevEnd = date.minusDays(31).atTime(23, 59, 59);
-        LocalDateTime prevStart = date.minusDays(60).atStartOfDay();
-        FrequencyStats freqPrev = statistiquesService.getFrequencyStats(prevStart, prevEnd);
-
-        long previousTotal = freqPrev.getCounts()
-                .stream()
-                .mapToLong(ZoneCategoryCount::getCount)
-                .sum();
-
-        // For trends, use the current period dates
-        LocalDateTime trendEnd = end;
-        LocalDateTime trendStart = date.minusDays(7).atStartOfDay();
-
-        Map<String, Object> dashboard = new HashMap<>();
-        dashboard.put("frequency", freqCurrent);
-        dashboard.put("previousTotal", previousTotal);
-        dashboard.put("trends", statistiquesService.getTrendStats(trendStart, trendEnd));
-        dashboard.put("communes", statistiquesService.getTopCommunes(date));
-        dashboard.put("resolution", statistiquesService.getTauxResolution(start, end));
-        dashboard.put("horaire", statistiquesService.getVariationHoraire());
-
-        return ResponseEntity.ok(dashboard);
+        Map<String, Object> dashboard = statistiquesService.getDashboard(date);
+
+        // A partial dashboard must not be cached in place of the complete one
+        CacheControl cacheControl = dashboard.containsKey("missing_sections")
+                ? CacheControl.noStore()
+                : CacheControl.maxAge(dashboardMaxAgeSeconds, TimeUnit.SECONDS);
+        return ResponseEntity.ok().cacheControl(cacheControl).body(dashboard);
     }
 
     @GetMapping("/global-stats")
@@ -0,0 +1,181 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog estimate of the number of distinct values added, with a
+ * standard error of 1.04 / sqrt(2^precision): 1.6% at the default
+ * precision of 12, for 4 KB of registers. A sketch that has seen few values
+ * keeps only its non-zero registers, so the many small per-day sketches stay
+ * a few bytes each. Adding a value twice changes nothing, and sketches merge
+ * by taking the larger register. Not thread-safe.
+ */
+public class DistinctCountSketch {
+
+    private static final byte SPARSE = 0, DENSE = 1;
+
+    private final int precision;
+    private final int m;
+    // Sparse form: sorted (register index << 8 | value), until it would outgrow the dense registers
+    private int[] sparse = new int[4];
+    private int sparseSize;
+    private byte[] registers;
+
+    public DistinctCountSketch(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("precision must be between 4 and 18");
+        }
+        this.precision = precision;
+        this.m = 1 << precision;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public void add(long value) {
+        addHash(mix(value + 0x9E3779B97F4A7C15L));
+    }
+
+    public void add(String value) {
+        // FNV-1a over the bytes, then mixed so that the high bits are usable as an index
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        addHash(mix(h));
+    }
+
+    public void mergeFrom(DistinctCountSketch other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of different precision");
+        }
+        if (other.registers != null) {
+            for (int i = 0; i < m; i++) {
+                set(i, other.registers[i]);
+            }
+        } else {
+            for (int k = 0; k < other.sparseSize; k++) {
+                set(other.sparse[k] >>> 8, (byte) other.sparse[k]);
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        if (registers != null) {
+            for (byte r : registers) {
+                sum += Math.scalb(1.0, -r);
+                if (r == 0) zeros++;
+            }
+        } else {
+            zeros = m - sparseSize;
+            sum = zeros;
+            for (int k = 0; k < sparseSize; k++) {
+                sum += Math.scalb(1.0, -(sparse[k] & 0xff));
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Linear counting is more accurate while many registers are empty
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public double getStandardError() {
+        return 1.04 / Math.sqrt(m);
+    }
+
+    /**
+     * [precision][form][registers]: the sparse form is a count followed by its
+     * entries, the dense form one byte per register.
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer;
+        if (registers != null) {
+            buffer = ByteBuffer.allocate(2 + m).put((byte) precision).put(DENSE).put(registers);
+        } else {
+            buffer = ByteBuffer.allocate(6 + 4 * sparseSize).put((byte) precision).put(SPARSE).putInt(sparseSize);
+            for (int k = 0; k < sparseSize; k++) {
+                buffer.putInt(sparse[k]);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static DistinctCountSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        DistinctCountSketch sketch = new DistinctCountSketch(buffer.get());
+        if (buffer.get() == DENSE) {
+            sketch.registers = new byte[sketch.m];
+            buffer.get(sketch.registers);
+            sketch.sparse = null;
+        } else {
+            sketch.sparseSize = buffer.getInt();
+            sketch.sparse = new int[Math.max(4, sketch.sparseSize)];
+            for (int k = 0; k < sketch.sparseSize; k++) {
+                sketch.sparse[k] = buffer.getInt();
+            }
+        }
+        return sketch;
+    }
+
+    private void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // The sentinel bit caps the rank at 64 - precision + 1
+        long rest = (hash << precision) | (1L << (precision - 1));
+        set(index, (byte) (Long.numberOfLeadingZeros(rest) + 1));
+    }
+
+    private void set(int index, byte value) {
+        if (value == 0) {
+            return;
+        }
+        if (registers != null) {
+            if (registers[index] < value) registers[index] = value;
+            return;
+        }
+        int pos = Arrays.binarySearch(sparse, 0, sparseSize, index << 8);
+        // Entries of this index sort at or after index << 8, before (index + 1) << 8
+        int at = pos >= 0 ? pos : -pos - 1;
+        if (at < sparseSize && sparse[at] >>> 8 == index) {
+            if ((sparse[at] & 0xff) < value) sparse[at] = index << 8 | value;
+            return;
+        }
+        if (4 * (sparseSize + 1) > m) {
+            toDense();
+            set(index, value);
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, sparse.length * 2);
+        }
+        System.arraycopy(sparse, at, sparse, at + 1, sparseSize - at);
+        sparse[at] = index << 8 | value;
+        sparseSize++;
+    }
+
+    private void toDense() {
+        registers = new byte[m];
+        for (int k = 0; k < sparseSize; k++) {
+            registers[sparse[k] >>> 8] = (byte) sparse[k];
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
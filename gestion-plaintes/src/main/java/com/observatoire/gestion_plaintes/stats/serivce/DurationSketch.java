@@ -0,0 +1,75 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Quantile sketch of durations in minutes with a bounded relative error:
+ * values fall in logarithmic buckets of ratio (1 + e) / (1 - e), so any
+ * quantile is returned within e of the true value. Sketches merge by adding
+ * bucket counts, and only non-empty buckets are stored (a few hundred at most
+ * for durations up to a year). Not thread-safe.
+ */
+public class DurationSketch {
+
+    private final double relativeError;
+    private final double logGamma;
+    private final Map<Integer, Long> buckets = new HashMap<>();
+    // Under a minute
+    private long zeroCount;
+    private long count;
+
+    public DurationSketch(double relativeError) {
+        this.relativeError = relativeError;
+        this.logGamma = Math.log((1 + relativeError) / (1 - relativeError));
+    }
+
+    public void add(double minutes) {
+        if (minutes < 1) {
+            zeroCount++;
+        } else {
+            buckets.merge((int) Math.ceil(Math.log(minutes) / logGamma), 1L, Long::sum);
+        }
+        count++;
+    }
+
+    public void mergeFrom(DurationSketch other) {
+        other.buckets.forEach((i, n) -> buckets.merge(i, n, Long::sum));
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getRelativeError() {
+        return relativeError;
+    }
+
+    /**
+     * @param q between 0 and 1
+     * @return the q-quantile in minutes, NaN when empty
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.ceil(q * count);
+        if (rank <= zeroCount) {
+            return 0;
+        }
+        int[] keys = buckets.keySet().stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(keys);
+        long seen = zeroCount;
+        for (int key : keys) {
+            seen += buckets.get(key);
+            if (seen >= rank) {
+                // Middle of the bucket (gamma^(key-1), gamma^key] in relative terms
+                return 2 * Math.exp(key * logGamma) / (1 + Math.exp(logGamma));
+            }
+        }
+        return 2 * Math.exp(keys[keys.length - 1] * logGamma) / (1 + Math.exp(logGamma));
+    }
+}
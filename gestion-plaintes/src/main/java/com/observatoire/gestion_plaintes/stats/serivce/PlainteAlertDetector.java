@@ -0,0 +1,271 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import com.observatoire.gestion_plaintes.DTOs.AlertDTO;
+import com.observatoire.gestion_plaintes.DTOs.Response.AlertSummaryDTO;
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Online surge detector per (zone, catégorie). New complaints are counted in
+ * fixed windows of stats.alerts.window-minutes; when a window closes its count
+ * updates an exponentially weighted mean and variance kept for that time of
+ * day, so a busy morning is compared with past mornings. Each new complaint
+ * compares the running window count with that baseline and raises an AlertDTO
+ * when it is stats.alerts.min-z standard deviations above, escalating the
+ * severity as the count keeps rising. Alerts are kept in memory and published
+ * as application events.
+ */
+@Component
+public class PlainteAlertDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteAlertDetector.class);
+
+    private static final String[] SEVERITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+    private static final int RECENT_ALERTS = 10;
+    private static final int TOP_ZONES = 5;
+
+    private final PlainteRepository plainteRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int windowMinutes;
+    private final int slotsPerDay;
+    private final double alpha;
+    private final int minWindows;
+    private final int minCount;
+    private final double minZ;
+    private final int warmupDays;
+    private final int maxAlerts;
+
+    private final Map<Key, Series> series = new HashMap<>();
+    // Oldest first
+    private final ArrayDeque<AlertDTO> alerts = new ArrayDeque<>();
+    private volatile boolean loaded = false;
+
+    public PlainteAlertDetector(PlainteRepository plainteRepository, ApplicationEventPublisher eventPublisher,
+                                @Value("${stats.alerts.window-minutes:60}") int windowMinutes,
+                                @Value("${stats.alerts.alpha:0.1}") double alpha,
+                                @Value("${stats.alerts.min-windows:7}") int minWindows,
+                                @Value("${stats.alerts.min-count:5}") int minCount,
+                                @Value("${stats.alerts.min-z:3}") double minZ,
+                                @Value("${stats.alerts.warmup-days:28}") int warmupDays,
+                                @Value("${stats.alerts.max-stored:1000}") int maxAlerts) {
+        this.plainteRepository = plainteRepository;
+        this.eventPublisher = eventPublisher;
+        this.windowMinutes = windowMinutes;
+        this.slotsPerDay = Math.max(1, 24 * 60 / windowMinutes);
+        this.alpha = alpha;
+        this.minWindows = minWindows;
+        this.minCount = minCount;
+        this.minZ = minZ;
+        this.warmupDays = warmupDays;
+        this.maxAlerts = maxAlerts;
+    }
+
+    private record Key(String zone, String categorie) {}
+
+    /**
+     * Count of the open window and one EWMA baseline per window of the day.
+     */
+    private final class Series {
+        long window = Long.MIN_VALUE;
+        int count;
+        int severity = -1;
+        final double[] mean = new double[slotsPerDay];
+        final double[] variance = new double[slotsPerDay];
+        final int[] seen = new int[slotsPerDay];
+
+        /**
+         * Closes the open window, and any empty ones up to a week, before window.
+         */
+        void advance(long next) {
+            if (window != Long.MIN_VALUE) {
+                fold(window, count);
+                long last = Math.min(next - 1, window + 7L * slotsPerDay);
+                for (long w = window + 1; w <= last; w++) {
+                    fold(w, 0);
+                }
+            }
+            window = next;
+            count = 0;
+            severity = -1;
+        }
+
+        private void fold(long w, int x) {
+            int s = slot(w);
+            if (seen[s]++ == 0) {
+                mean[s] = x;
+                return;
+            }
+            double diff = x - mean[s];
+            double increment = alpha * diff;
+            mean[s] += increment;
+            variance[s] = (1 - alpha) * (variance[s] + diff * increment);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        try {
+            series.clear();
+            alerts.clear();
+            List<PlainteSnapshot> history = new ArrayList<>(
+                    plainteRepository.findSnapshotsSince(LocalDateTime.now().minusDays(warmupDays)));
+            history.sort(Comparator.comparing(PlainteSnapshot::getDateSoumission));
+            for (PlainteSnapshot p : history) {
+                count(p, false);
+            }
+            loaded = true;
+            logger.info("Alert detector warmed up on {} complaints over {} days, {} series",
+                    history.size(), warmupDays, series.size());
+        } catch (Exception e) {
+            logger.error("Unable to warm up alert detector: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPlainteEvent(PlainteEvent event) {
+        if (event.getType() == PlainteEvent.Type.CREATED && loaded) {
+            count(event.getCurrent(), true);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Alerts raised since the given time, newest first, optionally of one severity.
+     */
+    public synchronized List<AlertDTO> alerts(LocalDateTime since, String severity, int limit) {
+        List<AlertDTO> result = new ArrayList<>();
+        for (Iterator<AlertDTO> it = alerts.descendingIterator(); it.hasNext() && result.size() < limit; ) {
+            AlertDTO a = it.next();
+            if (a.getDetectedAt().isBefore(since)) break;
+            if (severity == null || severity.equalsIgnoreCase(a.getSeverity())) {
+                result.add(a);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Last 24 h of alerts; the trend compares them with the 24 h before.
+     */
+    public synchronized AlertSummaryDTO summary() {
+        LocalDateTime now = LocalDateTime.now();
+        List<AlertDTO> lastDay = alerts(now.minusHours(24), null, Integer.MAX_VALUE);
+        int dayBefore = alerts(now.minusHours(48), null, Integer.MAX_VALUE).size() - lastDay.size();
+
+        AlertSummaryDTO summary = new AlertSummaryDTO(
+                lastDay.size(),
+                (int) lastDay.stream().filter(a -> "CRITICAL".equals(a.getSeverity())).count(),
+                (int) lastDay.stream().filter(a -> "HIGH".equals(a.getSeverity())).count());
+        summary.setRecentAlerts(lastDay.stream().limit(RECENT_ALERTS).collect(Collectors.toList()));
+        summary.setTopAffectedZones(lastDay.stream()
+                .collect(Collectors.groupingBy(AlertDTO::getZone, Collectors.counting()))
+                .entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP_ZONES)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList()));
+        summary.setAlertTrend(lastDay.size() > dayBefore * 1.2 ? "increasing"
+                : lastDay.size() < dayBefore * 0.8 ? "decreasing" : "stable");
+        return summary;
+    }
+
+    private void count(PlainteSnapshot p, boolean detect) {
+        if (p == null || p.getDateSoumission() == null) {
+            return;
+        }
+        Series s = series.computeIfAbsent(new Key(p.getZone(), p.getCategorie()), k -> new Series());
+        long window = windowOf(p.getDateSoumission());
+        if (window < s.window) {
+            return; // late: its window is already in the baseline
+        }
+        if (window > s.window) {
+            s.advance(window);
+        }
+        s.count++;
+        if (detect) {
+            detect(p, s);
+        }
+    }
+
+    private void detect(PlainteSnapshot p, Series s) {
+        int slot = slot(s.window);
+        if (s.seen[slot] < minWindows || s.count < minCount) {
+            return;
+        }
+        double mean = s.mean[slot];
+        double z = (s.count - mean) / Math.max(1.0, Math.sqrt(s.variance[slot]));
+        if (z < minZ) {
+            return;
+        }
+        int severity = Math.min(SEVERITIES.length - 1, (int) (z - minZ));
+        if (severity <= s.severity) {
+            return;
+        }
+        s.severity = severity;
+
+        String zone = p.getZone() != null ? p.getZone() : "Zone inconnue";
+        String categorie = p.getCategorie() != null ? p.getCategorie() : "Catégorie inconnue";
+        double increase = mean > 0 ? (s.count - mean) * 100.0 / mean : 100.0;
+        AlertDTO alert = new AlertDTO(zone, categorie, s.count, (int) Math.round(mean),
+                Math.round(increase * 10.0) / 10.0, SEVERITIES[severity]);
+        alert.setAlertId(zone + "|" + categorie + "|" + s.window + "|" + alert.getSeverity());
+        alert.setPeriodStart(windowStart(s.window));
+        alert.setPeriodEnd(windowStart(s.window + 1).minusSeconds(1));
+        alert.setAlertMessage(String.format("Hausse inhabituelle à %s (%s) : %d plaintes depuis %s, %.1f habituellement",
+                zone, categorie, s.count, alert.getPeriodStart().toLocalTime(), mean));
+        alert.setRecommendedAction(switch (alert.getSeverity()) {
+            case "CRITICAL" -> "Mobiliser une équipe d'intervention immédiatement";
+            case "HIGH" -> "Prévenir le responsable de zone et vérifier sur le terrain";
+            case "MEDIUM" -> "Examiner les plaintes récentes de la zone";
+            default -> "Surveiller l'évolution";
+        });
+        alert.setUrgencyLevel(switch (alert.getSeverity()) {
+            case "CRITICAL" -> "IMMEDIATE";
+            case "HIGH" -> "URGENT";
+            case "MEDIUM" -> "ELEVATED";
+            default -> "NORMAL";
+        });
+
+        alerts.addLast(alert);
+        while (alerts.size() > maxAlerts) {
+            alerts.removeFirst();
+        }
+        logger.warn("{} alert: {}", alert.getSeverity(), alert.getAlertMessage());
+        eventPublisher.publishEvent(alert);
+    }
+
+    private long windowOf(LocalDateTime t) {
+        return Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC) / 60, windowMinutes);
+    }
+
+    private LocalDateTime windowStart(long window) {
+        return LocalDateTime.ofEpochSecond(window * windowMinutes * 60, 0, ZoneOffset.UTC);
+    }
+
+    private int slot(long window) {
+        return (int) Math.floorMod(window, (long) slotsPerDay);
+    }
+}
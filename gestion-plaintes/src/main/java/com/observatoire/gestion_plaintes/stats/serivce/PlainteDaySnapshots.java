@@ -0,0 +1,203 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.model.PlainteStatsJourFige;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+import com.observatoire.gestion_plaintes.repository.PlainteStatsJourFigeRepository;
+import com.observatoire.gestion_plaintes.repository.PlainteStatsJourRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Frozen statistics of closed days, in plainte_stats_daily_snapshot.
+ *
+ * Each night the days of the last stats.snapshots.days not frozen yet are
+ * copied from the hourly rollup, and any range can be refrozen on demand.
+ * A frozen day is then only patched: a late edit to one of its complaints
+ * (status change, reclassification, deletion) adjusts its rows in the same
+ * transaction as the edit, like the rollup itself. Writes to the current day
+ * are left to the in-memory cube.
+ */
+@Service
+public class PlainteDaySnapshots {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteDaySnapshots.class);
+
+    private final PlainteStatsJourRepository jourRepository;
+    private final PlainteStatsJourFigeRepository figeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int days;
+
+    private final NavigableSet<LocalDate> frozen = new ConcurrentSkipListSet<>();
+    private volatile boolean loaded = false;
+
+    public PlainteDaySnapshots(PlainteStatsJourRepository jourRepository,
+                               PlainteStatsJourFigeRepository figeRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${stats.snapshots.days:120}") int days) {
+        this.jourRepository = jourRepository;
+        this.figeRepository = figeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.days = days;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        try {
+            frozen.clear();
+            figeRepository.findAll().forEach(f -> frozen.add(f.getJour()));
+            loaded = true;
+            freezeClosedDays();
+        } catch (Exception e) {
+            logger.error("Unable to load daily stats snapshots: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Freezes the closed days of the last stats.snapshots.days that are not frozen yet,
+     * from the oldest of them to yesterday in one pass.
+     */
+    @Scheduled(cron = "${stats.snapshots.cron:0 10 0 * * *}")
+    public void freezeClosedDays() {
+        if (!loaded) {
+            return;
+        }
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        for (LocalDate day = yesterday.minusDays(days - 1); !day.isAfter(yesterday); day = day.plusDays(1)) {
+            if (!frozen.contains(day)) {
+                try {
+                    freeze(day, yesterday);
+                } catch (Exception e) {
+                    logger.error("Freezing daily stats from {} failed: {}", day, e.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rewrites the snapshots of [from, to] from the hourly rollup, e.g. after a rollup rebuild.
+     * Only closed days can be frozen; to is capped at yesterday.
+     *
+     * @return number of days frozen
+     */
+    public int freeze(LocalDate from, LocalDate to) {
+        LocalDate last = to.isBefore(LocalDate.now()) ? to : LocalDate.now().minusDays(1);
+        if (from.isAfter(last)) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        List<PlainteStatsJourFige> marks = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(last); day = day.plusDays(1)) {
+            marks.add(new PlainteStatsJourFige(day, now));
+        }
+        Integer rows = transactionTemplate.execute(status -> {
+            jourRepository.lockForFreeze();
+            jourRepository.deleteDays(from, last);
+            int inserted = jourRepository.insertFromRollup(from.atStartOfDay(), last.plusDays(1).atStartOfDay());
+            figeRepository.saveAll(marks);
+            return inserted;
+        });
+        marks.forEach(m -> frozen.add(m.getJour()));
+        logger.info("Daily stats frozen for {} to {}: {} rows in {} ms", from, last, rows,
+                System.currentTimeMillis() - start);
+        return marks.size();
+    }
+
+    /**
+     * Refreezes every frozen day, for a rollup that was rebuilt.
+     */
+    public int refreezeAll() {
+        return frozen.isEmpty() ? 0 : freeze(frozen.first(), LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * Patches the rows of the closed days a complaint was and is now counted in.
+     * Days not frozen yet are patched too: freezing them rewrites their rows anyway.
+     */
+    @EventListener
+    @Transactional
+    public void onPlainteEvent(PlainteEvent event) {
+        if (event.getPrevious() != null) {
+            patch(event.getPrevious(), -1);
+        }
+        if (event.getCurrent() != null) {
+            patch(event.getCurrent(), 1);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int getFrozenDays() {
+        return frozen.size();
+    }
+
+    /**
+     * Totals per (zone, catégorie, statut) for each frozen day of [from, to], in one query;
+     * a frozen day without complaints maps to an empty list, days not frozen are absent.
+     */
+    public Map<LocalDate, List<PlainteRollupService.Row>> totalsByDay(LocalDate from, LocalDate to) {
+        Map<LocalDate, List<PlainteRollupService.Row>> result = new HashMap<>();
+        NavigableSet<LocalDate> inRange = frozen.subSet(from, true, to, true);
+        if (inRange.isEmpty()) {
+            return result;
+        }
+        inRange.forEach(day -> result.put(day, new ArrayList<>()));
+        for (Object[] r : jourRepository.findByJourBetween(inRange.first(), inRange.last())) {
+            List<PlainteRollupService.Row> rows = result.get((LocalDate) r[0]);
+            if (rows == null) continue;
+            String statut = (String) r[3];
+            rows.add(new PlainteRollupService.Row(
+                    unknownAsNull((String) r[1]),
+                    unknownAsNull((String) r[2]),
+                    statut.isEmpty() ? null : StatutPlainte.valueOf(statut),
+                    ((Number) r[4]).longValue(),
+                    ((Number) r[5]).longValue()));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private void patch(PlainteSnapshot p, int delta) {
+        if (p.getDateSoumission() == null) {
+            return;
+        }
+        LocalDate day = p.getDateSoumission().toLocalDate();
+        if (!day.isBefore(LocalDate.now())
+                || (!frozen.contains(day) && day.isBefore(LocalDate.now().minusDays(days)))) {
+            return;
+        }
+        jourRepository.increment(
+                day,
+                p.getZone() != null ? p.getZone() : "",
+                p.getCategorie() != null ? p.getCategorie() : "",
+                p.getStatut() != null ? p.getStatut().name() : "",
+                delta,
+                (long) delta * (p.getPriorite() != null ? p.getPriorite() : 0));
+    }
+
+    private static String unknownAsNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,214 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.model.PlainteDistinctSketch;
+import com.observatoire.gestion_plaintes.repository.PlainteDistinctSketchRepository;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Distinct reporters per zone and distinct zones per catégorie, as one
+ * DistinctCountSketch per day and key. A range merges the daily sketches of
+ * its days, optionally across every key, without reading any complaint.
+ *
+ * The sketches are stored in plainte_distinct_sketch: changed ones are written
+ * back every stats.distinct.flush-ms, and at startup the stored sketches are
+ * read and the complaints of their last day replayed on top, which is harmless
+ * since adding a value twice changes nothing. A sketch cannot forget a value,
+ * so a deleted or reclassified complaint still counts where it was first seen
+ * until the next rebuild.
+ *
+ * The sketches are guarded by this object; writes to the table by writeLock,
+ * taken first, so that a flush never upserts a sketch a rebuild just deleted.
+ */
+@Component
+public class PlainteDistinctCounts {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteDistinctCounts.class);
+
+    public enum Dimension {
+        // Reporters of a zone
+        ZONE,
+        // Zones of a catégorie
+        CATEGORIE
+    }
+
+    private record Key(LocalDate jour, Dimension dimension, String cle) {}
+
+    /**
+     * Merged estimate: value within about two standard errors of the true count.
+     */
+    public record Estimate(long value, double standardError, int sketches) {}
+
+    private final PlainteRepository plainteRepository;
+    private final PlainteDistinctSketchRepository sketchRepository;
+    private final int precision;
+
+    private final Map<Key, DistinctCountSketch> sketches = new HashMap<>();
+    private final Set<Key> dirty = new HashSet<>();
+    private final Object writeLock = new Object();
+    private volatile boolean loaded = false;
+
+    public PlainteDistinctCounts(PlainteRepository plainteRepository,
+                                 PlainteDistinctSketchRepository sketchRepository,
+                                 @Value("${stats.distinct.precision:12}") int precision) {
+        this.plainteRepository = plainteRepository;
+        this.sketchRepository = sketchRepository;
+        this.precision = precision;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        try {
+            long start = System.currentTimeMillis();
+            boolean rebuilt;
+            synchronized (writeLock) {
+                rebuilt = load();
+                loaded = true;
+                flush();
+            }
+            logger.info("Distinct count sketches loaded{}: {} sketches in {} ms",
+                    rebuilt ? " (rebuilt from complaints)" : "", sketches.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Unable to load distinct count sketches: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes every sketch from the complaints table, dropping what deleted or
+     * reclassified complaints left behind.
+     */
+    public void rebuild() {
+        synchronized (writeLock) {
+            synchronized (this) {
+                sketchRepository.deleteAllRows();
+                sketches.clear();
+                dirty.clear();
+                plainteRepository.findAllSnapshots().forEach(this::add);
+            }
+            flush();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPlainteEvent(PlainteEvent event) {
+        if (event.getCurrent() != null) {
+            add(event.getCurrent());
+        }
+    }
+
+    /**
+     * Writes back the sketches changed since the last flush; they are serialized
+     * under the lock and written outside it, under writeLock only.
+     */
+    @Scheduled(fixedDelayString = "${stats.distinct.flush-ms:30000}")
+    @PreDestroy
+    public void flush() {
+        if (!loaded) {
+            return;
+        }
+        synchronized (writeLock) {
+            Map<Key, byte[]> pending = new HashMap<>();
+            synchronized (this) {
+                for (Key key : dirty) {
+                    pending.put(key, sketches.get(key).toBytes());
+                }
+                dirty.clear();
+            }
+            for (Map.Entry<Key, byte[]> e : pending.entrySet()) {
+                Key key = e.getKey();
+                try {
+                    sketchRepository.upsert(key.jour(), key.dimension().name(), key.cle(), e.getValue());
+                } catch (Exception ex) {
+                    logger.error("Unable to store distinct count sketch {}: {}", key, ex.getMessage());
+                    synchronized (this) {
+                        dirty.add(key);
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Distinct values over the days of [from, to] for one key, or for every key
+     * of the dimension when cle is null.
+     */
+    public synchronized Estimate estimate(Dimension dimension, String cle, LocalDate from, LocalDate to) {
+        DistinctCountSketch merged = new DistinctCountSketch(precision);
+        int count = 0;
+        for (Map.Entry<Key, DistinctCountSketch> e : sketches.entrySet()) {
+            Key key = e.getKey();
+            if (key.dimension() != dimension || key.jour().isBefore(from) || key.jour().isAfter(to)) continue;
+            if (cle != null && !cle.equalsIgnoreCase(key.cle())) continue;
+            merged.mergeFrom(e.getValue());
+            count++;
+        }
+        return new Estimate(merged.estimate(), merged.getStandardError(), count);
+    }
+
+    /**
+     * @return whether the sketches were rebuilt from the complaints rather than read back
+     */
+    private synchronized boolean load() {
+        sketches.clear();
+        dirty.clear();
+        List<PlainteDistinctSketch> stored = sketchRepository.findAll();
+        boolean rebuild = stored.isEmpty();
+        for (PlainteDistinctSketch s : stored) {
+            DistinctCountSketch sketch = DistinctCountSketch.fromBytes(s.getRegistres());
+            if (sketch.getPrecision() != precision) {
+                // stats.distinct.precision changed: the stored sketches cannot be merged with new ones
+                rebuild = true;
+                break;
+            }
+            sketches.put(new Key(s.getJour(), Dimension.valueOf(s.getDimension()), s.getCle()), sketch);
+        }
+        if (rebuild) {
+            sketchRepository.deleteAllRows();
+            sketches.clear();
+            plainteRepository.findAllSnapshots().forEach(this::add);
+        } else {
+            LocalDate last = sketchRepository.findLastJour();
+            plainteRepository.findSnapshotsSince(last.atStartOfDay()).forEach(this::add);
+        }
+        return rebuild;
+    }
+
+    private void add(PlainteSnapshot p) {
+        if (p.getDateSoumission() == null) {
+            return;
+        }
+        LocalDate jour = p.getDateSoumission().toLocalDate();
+        if (p.getZone() != null && p.getUtilisateurId() != null) {
+            sketch(new Key(jour, Dimension.ZONE, p.getZone())).add(p.getUtilisateurId());
+        }
+        if (p.getCategorie() != null && p.getZone() != null) {
+            sketch(new Key(jour, Dimension.CATEGORIE, p.getCategorie())).add(p.getZone());
+        }
+    }
+
+    private DistinctCountSketch sketch(Key key) {
+        dirty.add(key);
+        return sketches.computeIfAbsent(key, k -> new DistinctCountSketch(precision));
+    }
+}
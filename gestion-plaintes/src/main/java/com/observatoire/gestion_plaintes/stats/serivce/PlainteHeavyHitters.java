@@ -0,0 +1,183 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.geo.GeoUtils;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Most frequent communes, catégories, reporters and grid cells, as one
+ * SpaceSavingSummary per day and dimension over the last stats.heavy-hitters.days.
+ * A top-K over a range of days merges the daily summaries, so memory stays at
+ * capacity counters per day and dimension whatever the traffic, and counts are
+ * exact as long as a day sees fewer distinct keys than the capacity.
+ */
+@Component
+public class PlainteHeavyHitters {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteHeavyHitters.class);
+
+    private static final String INCONNU = "Inconnu";
+
+    public enum Dimension {
+        COMMUNE, CATEGORIE, SIGNALEUR, CELLULE
+    }
+
+    private final PlainteRepository plainteRepository;
+    private final int capacity;
+    private final int retentionDays;
+    private final double cellDegrees;
+
+    private final Map<LocalDate, EnumMap<Dimension, SpaceSavingSummary>> days = new HashMap<>();
+    private volatile boolean loaded = false;
+
+    public PlainteHeavyHitters(PlainteRepository plainteRepository,
+                               @Value("${stats.heavy-hitters.capacity:100}") int capacity,
+                               @Value("${stats.heavy-hitters.days:90}") int retentionDays,
+                               @Value("${stats.heavy-hitters.cell-degrees:0.01}") double cellDegrees) {
+        this.plainteRepository = plainteRepository;
+        this.capacity = capacity;
+        this.retentionDays = retentionDays;
+        this.cellDegrees = cellDegrees;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        try {
+            days.clear();
+            int indexed = 0;
+            for (PlainteSnapshot p : plainteRepository.findSnapshotsSince(firstDay().atStartOfDay())) {
+                for (Dimension d : Dimension.values()) {
+                    add(d, p);
+                }
+                indexed++;
+            }
+            loaded = true;
+            logger.info("Heavy hitters loaded: {} complaints over {} days", indexed, days.size());
+        } catch (Exception e) {
+            logger.error("Unable to load heavy hitters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Only the dimensions whose key or day changed are touched: taking back and re-adding
+     * an untracked key could evict a tracked one.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPlainteEvent(PlainteEvent event) {
+        PlainteSnapshot previous = event.getPrevious();
+        PlainteSnapshot current = event.getCurrent();
+        for (Dimension d : Dimension.values()) {
+            if (previous != null && current != null
+                    && Objects.equals(day(previous), day(current))
+                    && Objects.equals(key(d, previous), key(d, current))) {
+                continue;
+            }
+            if (previous != null) {
+                remove(d, previous);
+            }
+            if (current != null) {
+                add(d, current);
+            }
+        }
+    }
+
+    @Scheduled(cron = "0 5 0 * * *")
+    public synchronized void prune() {
+        LocalDate first = firstDay();
+        days.keySet().removeIf(day -> day.isBefore(first));
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Whether days from this one on are still kept.
+     */
+    public boolean covers(LocalDate from) {
+        return !from.isBefore(firstDay());
+    }
+
+    public double getCellDegrees() {
+        return cellDegrees;
+    }
+
+    /**
+     * The summary of complaints submitted on the days of [from, to].
+     */
+    public synchronized SpaceSavingSummary summary(Dimension dimension, LocalDate from, LocalDate to) {
+        List<SpaceSavingSummary> parts = new ArrayList<>();
+        days.forEach((day, byDimension) -> {
+            if (!day.isBefore(from) && !day.isAfter(to)) {
+                parts.add(byDimension.get(dimension));
+            }
+        });
+        return SpaceSavingSummary.merge(parts, capacity);
+    }
+
+    private void add(Dimension d, PlainteSnapshot p) {
+        LocalDate day = day(p);
+        String key = key(d, p);
+        if (day == null || key == null || day.isBefore(firstDay())) {
+            return;
+        }
+        days.computeIfAbsent(day, k -> newDay()).get(d).add(key);
+    }
+
+    private void remove(Dimension d, PlainteSnapshot p) {
+        LocalDate day = day(p);
+        String key = key(d, p);
+        EnumMap<Dimension, SpaceSavingSummary> byDimension = day != null ? days.get(day) : null;
+        if (byDimension != null && key != null) {
+            byDimension.get(d).remove(key);
+        }
+    }
+
+    private EnumMap<Dimension, SpaceSavingSummary> newDay() {
+        EnumMap<Dimension, SpaceSavingSummary> byDimension = new EnumMap<>(Dimension.class);
+        for (Dimension d : Dimension.values()) {
+            byDimension.put(d, new SpaceSavingSummary(capacity));
+        }
+        return byDimension;
+    }
+
+    private LocalDate firstDay() {
+        return LocalDate.now().minusDays(retentionDays - 1);
+    }
+
+    private static LocalDate day(PlainteSnapshot p) {
+        return p.getDateSoumission() != null ? p.getDateSoumission().toLocalDate() : null;
+    }
+
+    /**
+     * Cells are GeoUtils.cellKey values; complaints without a reporter or coordinates have no key there.
+     */
+    private String key(Dimension d, PlainteSnapshot p) {
+        return switch (d) {
+            case COMMUNE -> p.getZone() != null ? p.getZone() : INCONNU;
+            case CATEGORIE -> p.getCategorie() != null ? p.getCategorie() : INCONNU;
+            case SIGNALEUR -> p.getUtilisateurId() != null ? p.getUtilisateurId().toString() : null;
+            case CELLULE -> GeoUtils.isValid(p.getLatitude(), p.getLongitude())
+                    ? Long.toString(GeoUtils.cellKey(GeoUtils.row(p.getLatitude(), cellDegrees),
+                    GeoUtils.col(p.getLongitude(), cellDegrees)))
+                    : null;
+        };
+    }
+}
@@ -0,0 +1,197 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import com.observatoire.gestion_plaintes.repository.PlainteRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains plainte_rollup_hourly and answers range totals from it.
+ * The rollup is written by a synchronous PlainteEvent listener, so it commits
+ * or rolls back with the complaint write that triggered it.
+ */
+@Service
+public class PlainteRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteRollupService.class);
+
+    /**
+     * Totals for one (zone, catégorie, statut); null stands for an unknown value.
+     */
+    public record Row(String zone, String categorie, StatutPlainte statut, long nombre, long sommePriorite) {}
+
+    private record Key(String zone, String categorie, StatutPlainte statut) {}
+
+    private final PlainteRollupRepository rollupRepository;
+    private final PlainteRepository plainteRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public PlainteRollupService(PlainteRollupRepository rollupRepository, PlainteRepository plainteRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.plainteRepository = plainteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * First start with the rollup table: fill it from the complaints already stored.
+     * Runs before PlainteDaySnapshots freezes days from the rollup.
+     */
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        try {
+            if (rollupRepository.count() == 0 && plainteRepository.count() > 0) {
+                // Called on this instance, so the @Transactional proxy of rebuild() is bypassed
+                transactionTemplate.executeWithoutResult(status -> rebuild());
+            }
+        } catch (Exception e) {
+            logger.error("Unable to initialise hourly rollup: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    @Transactional
+    public void onPlainteEvent(PlainteEvent event) {
+        if (event.getPrevious() != null) {
+            apply(event.getPrevious(), -1);
+        }
+        if (event.getCurrent() != null) {
+            apply(event.getCurrent(), 1);
+        }
+    }
+
+    /**
+     * Recomputes the whole rollup from plainte, e.g. after a manual data fix.
+     *
+     * @return number of rollup rows written
+     */
+    @Transactional
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        rollupRepository.lockForRebuild();
+        rollupRepository.deleteAllRows();
+        int rows = rollupRepository.insertFromPlaintes();
+        logger.info("Hourly rollup rebuilt: {} rows in {} ms", rows, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    /**
+     * Totals per (zone, catégorie, statut) for complaints submitted in [from, to].
+     * Whole hours come from the rollup; the partial hours at either end, if any,
+     * are counted on plainte so the result matches a query on the raw table.
+     * Both bounds null means every complaint; a single null bound leaves that side open.
+     */
+    public List<Row> totals(LocalDateTime from, LocalDateTime to) {
+        Map<Key, long[]> totals = new HashMap<>();
+        if (from == null && to == null) {
+            merge(totals, rollupRepository.sumAllByZoneCategorieAndStatut(), true);
+            return toRows(totals);
+        }
+        if (from == null) {
+            from = LocalDateTime.of(1970, 1, 1, 0, 0);
+        }
+        if (to == null) {
+            to = LocalDateTime.now();
+        }
+
+        LocalDateTime firstHour = from.truncatedTo(ChronoUnit.HOURS);
+        if (firstHour.isBefore(from)) {
+            firstHour = firstHour.plusHours(1);
+        }
+        // Exclusive end of the last hour that lies entirely inside [from, to];
+        // one microsecond is the finest step Postgres stores
+        LocalDateTime endHour = to.plus(1, ChronoUnit.MICROS).truncatedTo(ChronoUnit.HOURS);
+
+        if (!firstHour.isBefore(endHour)) {
+            merge(totals, plainteRepository.countByZoneCategorieAndStatut(from, to), false);
+            return toRows(totals);
+        }
+        merge(totals, rollupRepository.sumByZoneCategorieAndStatut(firstHour, endHour), true);
+        if (from.isBefore(firstHour)) {
+            merge(totals, plainteRepository.countByZoneCategorieAndStatut(
+                    from, firstHour.minus(1, ChronoUnit.MICROS)), false);
+        }
+        if (!endHour.isAfter(to)) {
+            merge(totals, plainteRepository.countByZoneCategorieAndStatut(endHour, to), false);
+        }
+        return toRows(totals);
+    }
+
+    /**
+     * Totals per (zone, catégorie, statut) for each day of [from, to] that has complaints,
+     * in one query on the rollup.
+     */
+    public Map<LocalDate, List<Row>> totalsByDay(LocalDate from, LocalDate to) {
+        Map<LocalDate, Map<Key, long[]>> byDay = new HashMap<>();
+        for (Object[] r : rollupRepository.sumByDayZoneCategorieAndStatut(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            LocalDate day = r[0] instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) r[0];
+            merge(byDay.computeIfAbsent(day, d -> new HashMap<>()),
+                    Collections.singletonList(Arrays.copyOfRange(r, 1, r.length)), true);
+        }
+        Map<LocalDate, List<Row>> days = new HashMap<>();
+        byDay.forEach((day, totals) -> days.put(day, toRows(totals)));
+        return days;
+    }
+
+    private void apply(PlainteSnapshot p, int delta) {
+        if (p.getDateSoumission() == null) {
+            return;
+        }
+        rollupRepository.increment(
+                p.getZone() != null ? p.getZone() : "",
+                p.getCategorie() != null ? p.getCategorie() : "",
+                p.getStatut() != null ? p.getStatut().name() : "",
+                p.getDateSoumission().truncatedTo(ChronoUnit.HOURS),
+                delta,
+                (long) delta * (p.getPriorite() != null ? p.getPriorite() : 0));
+    }
+
+    private static void merge(Map<Key, long[]> totals, List<Object[]> rows, boolean fromRollup) {
+        for (Object[] r : rows) {
+            Key key = fromRollup
+                    ? new Key(unknownAsNull((String) r[0]), unknownAsNull((String) r[1]),
+                            ((String) r[2]).isEmpty() ? null : StatutPlainte.valueOf((String) r[2]))
+                    : new Key((String) r[0], (String) r[1], (StatutPlainte) r[2]);
+            long[] sums = totals.computeIfAbsent(key, k -> new long[2]);
+            sums[0] += ((Number) r[3]).longValue();
+            sums[1] += r[4] != null ? ((Number) r[4]).longValue() : 0;
+        }
+    }
+
+    private static List<Row> toRows(Map<Key, long[]> totals) {
+        List<Row> rows = new ArrayList<>(totals.size());
+        for (Map.Entry<Key, long[]> e : totals.entrySet()) {
+            if (e.getValue()[0] > 0) {
+                Key k = e.getKey();
+                rows.add(new Row(k.zone(), k.categorie(), k.statut(), e.getValue()[0], e.getValue()[1]));
+            }
+        }
+        return rows;
+    }
+
+    private static String unknownAsNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,241 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.events.StatsCubeReloadedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Per-day totals cache in front of the frozen day snapshots, the cube and the
+ * hourly rollup: frozen days come from their snapshot, the others (the current
+ * day, days not frozen yet) from the cube, or from the rollup until it is loaded.
+ *
+ * Only the days of the last stats.cache.max-days, today included, are cached.
+ * A range is split into the whole days it covers within that window, answered
+ * from cached day buckets, and the rest on either side (partial days, older
+ * or future days), each computed by one query on every call. A day is loaded
+ * once however many requests ask for it at the same time, and is dropped when
+ * a complaint submitted on that day is written or the cube is reloaded, so the
+ * current day refreshes on every write while closed days stay cached. Past
+ * capacity the least recently read day goes first.
+ */
+@Component
+public class PlainteStatsBucketCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteStatsBucketCache.class);
+
+    // The end of day used throughout the stats endpoints (atTime(23, 59, 59))
+    private static final LocalTime END_OF_DAY = LocalTime.of(23, 59, 59);
+
+    private final PlainteStatsCube statsCube;
+    private final PlainteRollupService rollupService;
+    private final PlainteDaySnapshots daySnapshots;
+    private final int maxDays;
+
+    // Access-ordered, so the eldest entry is the least recently read day; guarded by itself
+    private final Map<LocalDate, CompletableFuture<List<PlainteRollupService.Row>>> days;
+
+    public PlainteStatsBucketCache(PlainteStatsCube statsCube, PlainteRollupService rollupService,
+                                   PlainteDaySnapshots daySnapshots,
+                                   @Value("${stats.cache.max-days:120}") int maxDays) {
+        this.statsCube = statsCube;
+        this.rollupService = rollupService;
+        this.daySnapshots = daySnapshots;
+        this.maxDays = maxDays;
+        this.days = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, CompletableFuture<List<PlainteRollupService.Row>>> eldest) {
+                return size() > PlainteStatsBucketCache.this.maxDays;
+            }
+        };
+    }
+
+    /**
+     * Same contract as PlainteRollupService.totals. Ranges with an open bound are not cached.
+     */
+    public List<PlainteRollupService.Row> totals(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            return direct(from, to);
+        }
+        LocalDate firstDay = from.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? from.toLocalDate() : from.toLocalDate().plusDays(1);
+        LocalDate lastDay = !to.toLocalTime().isBefore(END_OF_DAY)
+                ? to.toLocalDate() : to.toLocalDate().minusDays(1);
+        LocalDate today = LocalDate.now();
+        if (firstDay.isBefore(windowStart(today))) {
+            firstDay = windowStart(today);
+        }
+        if (lastDay.isAfter(today)) {
+            lastDay = today;
+        }
+        if (firstDay.isAfter(lastDay)) {
+            return direct(from, to);
+        }
+
+        List<PlainteRollupService.Row> rows = new ArrayList<>();
+        if (from.isBefore(firstDay.atStartOfDay())) {
+            rows.addAll(direct(from, firstDay.atStartOfDay().minus(1, ChronoUnit.MICROS)));
+        }
+        totalsByDay(firstDay, lastDay).values().forEach(rows::addAll);
+        if (lastDay.isBefore(to.toLocalDate())) {
+            rows.addAll(direct(lastDay.plusDays(1).atStartOfDay(), to));
+        }
+        return rows;
+    }
+
+    /**
+     * Totals for each day of [first, last] that has complaints. The days of the window
+     * not cached yet are loaded in one query; days outside it take one query per side.
+     */
+    public Map<LocalDate, List<PlainteRollupService.Row>> totalsByDay(LocalDate first, LocalDate last) {
+        LocalDate today = LocalDate.now();
+        LocalDate cachedFirst = first.isBefore(windowStart(today)) ? windowStart(today) : first;
+        LocalDate cachedLast = last.isAfter(today) ? today : last;
+        if (cachedFirst.isAfter(cachedLast)) {
+            return fetch(first, last);
+        }
+
+        Map<LocalDate, List<PlainteRollupService.Row>> result = new HashMap<>();
+        if (first.isBefore(cachedFirst)) {
+            result.putAll(fetch(first, cachedFirst.minusDays(1)));
+        }
+        if (last.isAfter(cachedLast)) {
+            result.putAll(fetch(cachedLast.plusDays(1), last));
+        }
+
+        Map<LocalDate, CompletableFuture<List<PlainteRollupService.Row>>> wanted = new HashMap<>();
+        Map<LocalDate, CompletableFuture<List<PlainteRollupService.Row>>> claimed = new HashMap<>();
+        synchronized (days) {
+            for (LocalDate day = cachedFirst; !day.isAfter(cachedLast); day = day.plusDays(1)) {
+                CompletableFuture<List<PlainteRollupService.Row>> existing = days.get(day);
+                if (existing == null) {
+                    existing = new CompletableFuture<>();
+                    days.put(day, existing);
+                    claimed.put(day, existing);
+                }
+                wanted.put(day, existing);
+            }
+        }
+        if (!claimed.isEmpty()) {
+            load(claimed);
+        }
+
+        wanted.forEach((day, future) -> result.put(day, join(future)));
+        return result;
+    }
+
+    /**
+     * Drops the days a complaint was and is now counted in, once its write has committed
+     * and after the cube has applied it.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlainteEvent(PlainteEvent event) {
+        invalidate(event.getPrevious());
+        invalidate(event.getCurrent());
+    }
+
+    /**
+     * For writes that bypass PlainteService, such as a rollup rebuild.
+     */
+    public void invalidateAll() {
+        synchronized (days) {
+            days.clear();
+        }
+    }
+
+    /**
+     * The cube was rebuilt from the database: days read from it may have drifted.
+     */
+    @EventListener
+    public void onCubeReloaded(StatsCubeReloadedEvent event) {
+        invalidateAll();
+    }
+
+    private void load(Map<LocalDate, CompletableFuture<List<PlainteRollupService.Row>>> claimed) {
+        try {
+            Map<LocalDate, List<PlainteRollupService.Row>> loaded = fetch(
+                    Collections.min(claimed.keySet()), Collections.max(claimed.keySet()));
+            claimed.forEach((day, future) -> future.complete(loaded.getOrDefault(day, List.of())));
+        } catch (RuntimeException e) {
+            // Not cached: the next request retries
+            synchronized (days) {
+                claimed.forEach(days::remove);
+            }
+            claimed.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Per-day totals of [first, last], uncached: frozen days from their snapshot, the
+     * others from the cube or the rollup, in one query each.
+     */
+    private Map<LocalDate, List<PlainteRollupService.Row>> fetch(LocalDate first, LocalDate last) {
+        Map<LocalDate, List<PlainteRollupService.Row>> loaded = new HashMap<>(
+                daySnapshots.isLoaded() ? daySnapshots.totalsByDay(first, last) : Map.of());
+        LocalDate liveFirst = first;
+        while (!liveFirst.isAfter(last) && loaded.containsKey(liveFirst)) {
+            liveFirst = liveFirst.plusDays(1);
+        }
+        LocalDate liveLast = last;
+        while (!liveLast.isBefore(liveFirst) && loaded.containsKey(liveLast)) {
+            liveLast = liveLast.minusDays(1);
+        }
+        if (!liveFirst.isAfter(liveLast)) {
+            Map<LocalDate, List<PlainteRollupService.Row>> rest = statsCube.isLoaded()
+                    ? statsCube.totalsByDay(liveFirst, liveLast)
+                    : rollupService.totalsByDay(liveFirst, liveLast);
+            rest.forEach(loaded::putIfAbsent);
+        }
+        return loaded;
+    }
+
+    private LocalDate windowStart(LocalDate today) {
+        return today.minusDays(maxDays - 1);
+    }
+
+    private void invalidate(PlainteSnapshot p) {
+        if (p != null && p.getDateSoumission() != null) {
+            synchronized (days) {
+                days.remove(p.getDateSoumission().toLocalDate());
+            }
+        }
+    }
+
+    private List<PlainteRollupService.Row> direct(LocalDateTime from, LocalDateTime to) {
+        return statsCube.isLoaded() ? statsCube.totals(from, to) : rollupService.totals(from, to);
+    }
+
+    private static List<PlainteRollupService.Row> join(CompletableFuture<List<PlainteRollupService.Row>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for stats bucket", e);
+        } catch (ExecutionException e) {
+            logger.error("Stats bucket load failed: {}", e.getCause().getMessage());
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,591 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.events.StatsCubeReloadedEvent;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process statistics cube: complaint count and priority sum per
+ * [day][zone][catégorie][statut][quarter-hour]. Zones and categories are
+ * dictionary-encoded and a cell is packed into one int
+ * (zone 14 bits, catégorie 8, statut 3, quarter of the day 7); each day
+ * stores its non-empty cells in an open-addressing table of primitive
+ * arrays, about 24 bytes per cell, so a year of data takes a few tens of MB.
+ *
+ * Loaded at startup, updated in place from PlainteEvents and reloaded
+ * from the database on stats.cube.reconcile-cron; every reload publishes a
+ * StatsCubeReloadedEvent. Events arriving while a reload reads the database
+ * are kept per complaint and replayed on the new contents before they replace
+ * the old ones, so no write is lost to the reload. Totals are exact: the
+ * quarter-hours lying entirely inside [from, to] come from the cells and
+ * the partial ones at either end are counted in the database. Time series
+ * down-sample the quarter-hours.
+ */
+@Component
+public class PlainteStatsCube {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteStatsCube.class);
+
+    private static final int MAX_ZONES = 1 << 14;
+    private static final int MAX_CATEGORIES = 1 << 8;
+    private static final int HOURS_OF_WEEK = 7 * 24;
+    private static final int QUARTER_MINUTES = 15;
+    private static final int QUARTERS_PER_DAY = 24 * 60 / QUARTER_MINUTES;
+
+    /**
+     * What a time series is split by.
+     */
+    public enum SeriesGroup {
+        NONE, ZONE, CATEGORIE, STATUT
+    }
+
+    private final PlainteRepository plainteRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile State state = new State();
+    private volatile boolean loaded = false;
+    // Latest snapshot (null once deleted) of each complaint changed during a reload, guarded by reloadLock
+    private Map<Long, PlainteSnapshot> pending;
+    private final Object reloadLock = new Object();
+
+    public PlainteStatsCube(PlainteRepository plainteRepository, ApplicationEventPublisher eventPublisher) {
+        this.plainteRepository = plainteRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Everything a reload replaces at once.
+     */
+    private static final class State {
+        final Dictionary zones = new Dictionary(MAX_ZONES);
+        final Dictionary categories = new Dictionary(MAX_CATEGORIES);
+        final Map<LocalDate, DaySlice> days = new ConcurrentHashMap<>();
+        // Hour of week (Monday 00h = 0) over all days, overall and per zone / catégorie code
+        final AtomicLongArray hourOfWeekTotals = new AtomicLongArray(HOURS_OF_WEEK);
+        final Map<Integer, AtomicLongArray> zoneHourOfWeek = new ConcurrentHashMap<>();
+        final Map<Integer, AtomicLongArray> categoryHourOfWeek = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * String to small int code and back; code 0 is the unknown (null) value,
+     * and also absorbs new values once the dictionary is full.
+     */
+    private static final class Dictionary {
+        private final int capacity;
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private volatile String[] values = new String[16];
+        private int size = 1;
+
+        Dictionary(int capacity) {
+            this.capacity = capacity;
+        }
+
+        int encode(String value) {
+            if (value == null) return 0;
+            Integer code = codes.get(value);
+            return code != null ? code : add(value);
+        }
+
+        String decode(int code) {
+            return code == 0 ? null : values[code];
+        }
+
+        /**
+         * Code of a value already seen, -1 otherwise; never adds.
+         */
+        int lookup(String value) {
+            Integer code = codes.get(value);
+            return code != null ? code : -1;
+        }
+
+        private synchronized int add(String value) {
+            Integer code = codes.get(value);
+            if (code != null) return code;
+            if (size == capacity) {
+                logger.warn("Stats cube dictionary full ({} values), '{}' counted as unknown", capacity, value);
+                return 0;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size] = value;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    /**
+     * One day of cells: packed key -> count and priority sum, linear probing.
+     * The slice is its own lock, so writes to different days never contend.
+     */
+    private static final class DaySlice {
+        private static final int EMPTY = -1;
+
+        private int[] keys = newKeys(16);
+        private int[] counts = new int[16];
+        private int[] priorites = new int[16];
+        private int size;
+
+        synchronized void add(int key, int delta, int priorite) {
+            int i = slot(keys, key);
+            if (keys[i] == EMPTY) {
+                if (delta <= 0) return;
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    i = slot(keys, key);
+                }
+                keys[i] = key;
+                size++;
+            }
+            counts[i] += delta;
+            priorites[i] += priorite;
+        }
+
+        /**
+         * Adds the cells whose quarter of the day is in [fromQuarter, toQuarter] into totals,
+         * keyed by the cell without its quarter bits.
+         */
+        synchronized void collect(int fromQuarter, int toQuarter, Map<Integer, long[]> totals) {
+            for (int i = 0; i < keys.length; i++) {
+                int key = keys[i];
+                if (key == EMPTY || counts[i] == 0) continue;
+                int quarter = key & 127;
+                if (quarter < fromQuarter || quarter > toQuarter) continue;
+                long[] t = totals.computeIfAbsent(key >>> 7, k -> new long[2]);
+                t[0] += counts[i];
+                t[1] += priorites[i];
+            }
+        }
+
+        /**
+         * Adds the counts of the cells matching zone and catégorie (-1 for any) into hours[0-23].
+         */
+        synchronized void collectHours(int zone, int category, long[] hours, int offset) {
+            for (int i = 0; i < keys.length; i++) {
+                int key = keys[i];
+                if (key == EMPTY || counts[i] == 0) continue;
+                if (zone >= 0 && key >>> 18 != zone) continue;
+                if (category >= 0 && (key >>> 10 & 0xff) != category) continue;
+                hours[offset + ((key & 127) >> 2)] += counts[i];
+            }
+        }
+
+        /**
+         * Adds the counts of the cells matching the query into its buckets, one array per group code.
+         * dayMinute is the first minute of this day on the query's clock.
+         */
+        synchronized void collectSeries(long dayMinute, SeriesQuery q, Map<Integer, long[]> series) {
+            for (int i = 0; i < keys.length; i++) {
+                int key = keys[i];
+                if (key == EMPTY || counts[i] == 0) continue;
+                if (q.zone() >= 0 && key >>> 18 != q.zone()) continue;
+                if (q.category() >= 0 && (key >>> 10 & 0xff) != q.category()) continue;
+                if (q.statut() >= 0 && (key >>> 7 & 7) != q.statut()) continue;
+                long minute = dayMinute + (long) (key & 127) * QUARTER_MINUTES;
+                if (minute < q.firstMinute() || minute > q.lastMinute()) continue;
+                long bucket = (minute - q.startMinute()) / q.bucketMinutes();
+                if (bucket < 0 || bucket >= q.buckets()) continue;
+                int group = q.groupBy() == SeriesGroup.ZONE ? key >>> 18
+                        : q.groupBy() == SeriesGroup.CATEGORIE ? key >>> 10 & 0xff
+                        : q.groupBy() == SeriesGroup.STATUT ? key >>> 7 & 7
+                        : 0;
+                series.computeIfAbsent(group, g -> new long[q.buckets()])[(int) bucket] += counts[i];
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys, oldCounts = counts, oldPriorites = priorites;
+            keys = newKeys(oldKeys.length * 2);
+            counts = new int[keys.length];
+            priorites = new int[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY) continue;
+                int j = slot(keys, oldKeys[i]);
+                keys[j] = oldKeys[i];
+                counts[j] = oldCounts[i];
+                priorites[j] = oldPriorites[i];
+            }
+        }
+
+        private static int slot(int[] keys, int key) {
+            int mask = keys.length - 1;
+            int i = (key * 0x9E3779B9) >>> 16 & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private static int[] newKeys(int length) {
+            int[] keys = new int[length];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        try {
+            long start = System.currentTimeMillis();
+            synchronized (reloadLock) {
+                pending = new HashMap<>();
+            }
+            State fresh = new State();
+            int indexed = 0;
+            List<PlainteSnapshot> snapshots = plainteRepository.findAllSnapshots();
+            for (PlainteSnapshot p : snapshots) {
+                if (apply(fresh, p, 1)) indexed++;
+            }
+            synchronized (reloadLock) {
+                replay(fresh, snapshots);
+                state = fresh;
+                pending = null;
+            }
+            loaded = true;
+            int cells = fresh.days.values().stream().mapToInt(DaySlice::size).sum();
+            logger.info("Stats cube loaded: {} complaints, {} days, {} cells, {} zones in {} ms",
+                    indexed, fresh.days.size(), cells, fresh.zones.size - 1, System.currentTimeMillis() - start);
+            eventPublisher.publishEvent(new StatsCubeReloadedEvent());
+        } catch (Exception e) {
+            synchronized (reloadLock) {
+                pending = null;
+            }
+            logger.error("Unable to load stats cube: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Brings the complaints changed during a reload to their latest snapshot. Whether the
+     * query saw a change or not, the row it read is taken out and the latest one put in.
+     */
+    private void replay(State fresh, List<PlainteSnapshot> snapshots) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (PlainteSnapshot p : snapshots) {
+            if (pending.containsKey(p.getId())) {
+                apply(fresh, p, -1);
+            }
+        }
+        for (PlainteSnapshot latest : pending.values()) {
+            if (latest != null) {
+                apply(fresh, latest, 1);
+            }
+        }
+        logger.info("Stats cube reload: {} complaints changed while loading replayed", pending.size());
+    }
+
+    /**
+     * Rebuilds the cube from the database so that any drift (writes outside
+     * PlainteService) does not last.
+     */
+    @Scheduled(cron = "${stats.cube.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        reload();
+    }
+
+    // Before PlainteStatsBucketCache drops the days, so a reload after that sees this update
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlainteEvent(PlainteEvent event) {
+        State s;
+        synchronized (reloadLock) {
+            s = state;
+            if (pending != null) {
+                PlainteSnapshot p = event.getCurrent() != null ? event.getCurrent() : event.getPrevious();
+                pending.put(p.getId(), event.getCurrent());
+            }
+        }
+        if (event.getPrevious() != null) {
+            apply(s, event.getPrevious(), -1);
+        }
+        if (event.getCurrent() != null) {
+            apply(s, event.getCurrent(), 1);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Totals per (zone, catégorie, statut) of the complaints submitted within [from, to];
+     * both bounds null means every complaint. Only partial quarter-hours at the ends of
+     * the range, at most 15 minutes each, are read from the database.
+     */
+    public List<PlainteRollupService.Row> totals(LocalDateTime from, LocalDateTime to) {
+        State s = state;
+        Map<Integer, long[]> totals = new HashMap<>();
+        if (from == null && to == null) {
+            for (DaySlice slice : s.days.values()) {
+                slice.collect(0, QUARTERS_PER_DAY - 1, totals);
+            }
+            return toRows(s, totals);
+        }
+
+        LocalDateTime first = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime last = to != null ? to : LocalDateTime.now();
+        // First quarter-hour starting at or after first, and exclusive end of the last one
+        // lying entirely inside [first, last]; one microsecond is the finest step Postgres stores
+        LocalDateTime firstQuarter = quarterStart(first);
+        if (firstQuarter.isBefore(first)) {
+            firstQuarter = firstQuarter.plusMinutes(QUARTER_MINUTES);
+        }
+        LocalDateTime endQuarter = quarterStart(last.plus(1, ChronoUnit.MICROS));
+
+        if (!firstQuarter.isBefore(endQuarter)) {
+            addExact(s, first, last, totals);
+            return toRows(s, totals);
+        }
+        LocalDateTime lastQuarter = endQuarter.minusMinutes(QUARTER_MINUTES);
+        if (ChronoUnit.DAYS.between(firstQuarter.toLocalDate(), lastQuarter.toLocalDate()) > s.days.size()) {
+            for (Map.Entry<LocalDate, DaySlice> e : s.days.entrySet()) {
+                collect(e.getKey(), e.getValue(), firstQuarter, lastQuarter, totals);
+            }
+        } else {
+            for (LocalDate day = firstQuarter.toLocalDate(); !day.isAfter(lastQuarter.toLocalDate()); day = day.plusDays(1)) {
+                DaySlice slice = s.days.get(day);
+                if (slice != null) {
+                    collect(day, slice, firstQuarter, lastQuarter, totals);
+                }
+            }
+        }
+        if (first.isBefore(firstQuarter)) {
+            addExact(s, first, firstQuarter.minus(1, ChronoUnit.MICROS), totals);
+        }
+        if (!endQuarter.isAfter(last)) {
+            addExact(s, endQuarter, last, totals);
+        }
+        return toRows(s, totals);
+    }
+
+    /**
+     * Totals per (zone, catégorie, statut) for each day of [from, to] that has complaints.
+     */
+    public Map<LocalDate, List<PlainteRollupService.Row>> totalsByDay(LocalDate from, LocalDate to) {
+        State s = state;
+        Map<LocalDate, List<PlainteRollupService.Row>> days = new HashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DaySlice slice = s.days.get(day);
+            if (slice == null) continue;
+            Map<Integer, long[]> totals = new HashMap<>();
+            slice.collect(0, QUARTERS_PER_DAY - 1, totals);
+            days.put(day, toRows(s, totals));
+        }
+        return days;
+    }
+
+    private static List<PlainteRollupService.Row> toRows(State s, Map<Integer, long[]> totals) {
+        List<PlainteRollupService.Row> rows = new ArrayList<>(totals.size());
+        for (Map.Entry<Integer, long[]> e : totals.entrySet()) {
+            if (e.getValue()[0] <= 0) continue;
+            int key = e.getKey();
+            int statut = key & 7;
+            rows.add(new PlainteRollupService.Row(
+                    s.zones.decode(key >>> 11),
+                    s.categories.decode((key >>> 3) & 0xff),
+                    statut == 0 ? null : StatutPlainte.values()[statut - 1],
+                    e.getValue()[0],
+                    e.getValue()[1]));
+        }
+        return rows;
+    }
+
+    /**
+     * Complaint count per hour of day (0-23) over all days.
+     */
+    public long[] countByHour() {
+        AtomicLongArray totals = state.hourOfWeekTotals;
+        long[] result = new long[24];
+        for (int h = 0; h < HOURS_OF_WEEK; h++) {
+            result[h % 24] += Math.max(0, totals.get(h));
+        }
+        return result;
+    }
+
+    /**
+     * Complaint count per hour of week, index (day of week - 1) * 24 + hour, Monday first.
+     * Without dates this reads the running counters (zone or catégorie alone); otherwise
+     * it sums the days of [from, to]. A null zone or catégorie means any.
+     */
+    public long[] countByHourOfWeek(LocalDate from, LocalDate to, String zone, String categorie) {
+        State s = state;
+        long[] result = new long[HOURS_OF_WEEK];
+        int zoneCode = zone != null ? s.zones.lookup(zone) : -1;
+        int categoryCode = categorie != null ? s.categories.lookup(categorie) : -1;
+        if ((zone != null && zoneCode < 0) || (categorie != null && categoryCode < 0)) {
+            return result;
+        }
+
+        if (from == null && to == null && (zone == null || categorie == null)) {
+            AtomicLongArray totals = zone != null ? s.zoneHourOfWeek.get(zoneCode)
+                    : categorie != null ? s.categoryHourOfWeek.get(categoryCode)
+                    : s.hourOfWeekTotals;
+            if (totals != null) {
+                for (int h = 0; h < HOURS_OF_WEEK; h++) {
+                    result[h] = Math.max(0, totals.get(h));
+                }
+            }
+            return result;
+        }
+
+        LocalDate first = from != null ? from : LocalDate.MIN;
+        LocalDate last = to != null ? to : LocalDate.MAX;
+        if (from != null && to != null && ChronoUnit.DAYS.between(from, to) <= s.days.size()) {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                DaySlice slice = s.days.get(day);
+                if (slice != null) {
+                    slice.collectHours(zoneCode, categoryCode, result, dayOffset(day));
+                }
+            }
+        } else {
+            s.days.forEach((day, slice) -> {
+                if (!day.isBefore(first) && !day.isAfter(last)) {
+                    slice.collectHours(zoneCode, categoryCode, result, dayOffset(day));
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Filters, grouping and bucket layout of a time series; minutes are counted
+     * on the local clock (LocalDateTime read as UTC), codes -1 mean any.
+     */
+    private record SeriesQuery(int zone, int category, int statut, SeriesGroup groupBy,
+                               long firstMinute, long lastMinute, long startMinute,
+                               int bucketMinutes, int buckets) {}
+
+    /**
+     * Complaint counts in buckets of bucketMinutes (a multiple of 15) laid out from start,
+     * for the quarter-hours starting within [from, to]; one array of length buckets per
+     * value of groupBy, keyed "Inconnu" for unknown values and "total" without grouping.
+     * A null zone, catégorie or statut means any. The cost depends on the cells of the
+     * days covered, not on the number of complaints.
+     */
+    public Map<String, long[]> series(LocalDateTime start, int bucketMinutes, int buckets,
+                                      LocalDateTime from, LocalDateTime to, SeriesGroup groupBy,
+                                      String zone, String categorie, StatutPlainte statut) {
+        State s = state;
+        Map<String, long[]> result = new HashMap<>();
+        int zoneCode = zone != null ? s.zones.lookup(zone) : -1;
+        int categoryCode = categorie != null ? s.categories.lookup(categorie) : -1;
+        if ((zone != null && zoneCode < 0) || (categorie != null && categoryCode < 0)) {
+            return result;
+        }
+
+        SeriesQuery q = new SeriesQuery(zoneCode, categoryCode, statut != null ? statut.ordinal() + 1 : -1,
+                groupBy, epochMinute(from), epochMinute(to), epochMinute(start), bucketMinutes, buckets);
+        Map<Integer, long[]> byCode = new HashMap<>();
+        for (LocalDate day = from.toLocalDate(); !day.isAfter(to.toLocalDate()); day = day.plusDays(1)) {
+            DaySlice slice = s.days.get(day);
+            if (slice != null) {
+                slice.collectSeries(epochMinute(day.atStartOfDay()), q, byCode);
+            }
+        }
+
+        byCode.forEach((code, counts) -> {
+            String label = switch (groupBy) {
+                case ZONE -> s.zones.decode(code);
+                case CATEGORIE -> s.categories.decode(code);
+                case STATUT -> code == 0 ? null : StatutPlainte.values()[code - 1].name();
+                case NONE -> "total";
+            };
+            // Several codes can decode to "Inconnu" only if a real value is named so; add them up
+            result.merge(label != null ? label : "Inconnu", counts, (a, b) -> {
+                for (int i = 0; i < a.length; i++) a[i] += b[i];
+                return a;
+            });
+        });
+        return result;
+    }
+
+    private static long epochMinute(LocalDateTime t) {
+        return Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static int dayOffset(LocalDate day) {
+        return (day.getDayOfWeek().getValue() - 1) * 24;
+    }
+
+    private static void collect(LocalDate day, DaySlice slice, LocalDateTime firstQuarter,
+                                LocalDateTime lastQuarter, Map<Integer, long[]> totals) {
+        if (day.isBefore(firstQuarter.toLocalDate()) || day.isAfter(lastQuarter.toLocalDate())) return;
+        int fromQuarter = day.equals(firstQuarter.toLocalDate()) ? quarterOfDay(firstQuarter) : 0;
+        int toQuarter = day.equals(lastQuarter.toLocalDate()) ? quarterOfDay(lastQuarter) : QUARTERS_PER_DAY - 1;
+        slice.collect(fromQuarter, toQuarter, totals);
+    }
+
+    /**
+     * Adds the complaints of [from, to] counted in the database, keyed like the cells.
+     */
+    private void addExact(State s, LocalDateTime from, LocalDateTime to, Map<Integer, long[]> totals) {
+        for (Object[] r : plainteRepository.countByZoneCategorieAndStatut(from, to)) {
+            StatutPlainte statut = (StatutPlainte) r[2];
+            int key = s.zones.encode((String) r[0]) << 11
+                    | s.categories.encode((String) r[1]) << 3
+                    | (statut != null ? statut.ordinal() + 1 : 0);
+            long[] t = totals.computeIfAbsent(key, k -> new long[2]);
+            t[0] += ((Number) r[3]).longValue();
+            t[1] += r[4] != null ? ((Number) r[4]).longValue() : 0;
+        }
+    }
+
+    private static LocalDateTime quarterStart(LocalDateTime t) {
+        LocalDateTime hour = t.truncatedTo(ChronoUnit.HOURS);
+        return hour.plusMinutes(t.getMinute() / QUARTER_MINUTES * QUARTER_MINUTES);
+    }
+
+    private static int quarterOfDay(LocalDateTime t) {
+        return t.getHour() * 4 + t.getMinute() / QUARTER_MINUTES;
+    }
+
+    private static boolean apply(State s, PlainteSnapshot p, int delta) {
+        if (p.getDateSoumission() == null) {
+            return false;
+        }
+        int hour = p.getDateSoumission().getHour();
+        int key = s.zones.encode(p.getZone()) << 18
+                | s.categories.encode(p.getCategorie()) << 10
+                | (p.getStatut() != null ? p.getStatut().ordinal() + 1 : 0) << 7
+                | quarterOfDay(p.getDateSoumission());
+        int priorite = p.getPriorite() != null ? p.getPriorite() : 0;
+        LocalDate day = p.getDateSoumission().toLocalDate();
+        s.days.computeIfAbsent(day, d -> new DaySlice()).add(key, delta, delta * priorite);
+
+        int hourOfWeek = dayOffset(day) + hour;
+        s.hourOfWeekTotals.addAndGet(hourOfWeek, delta);
+        s.zoneHourOfWeek.computeIfAbsent(key >>> 18, z -> new AtomicLongArray(HOURS_OF_WEEK))
+                .addAndGet(hourOfWeek, delta);
+        s.categoryHourOfWeek.computeIfAbsent(key >>> 10 & 0xff, c -> new AtomicLongArray(HOURS_OF_WEEK))
+                .addAndGet(hourOfWeek, delta);
+        return true;
+    }
+}
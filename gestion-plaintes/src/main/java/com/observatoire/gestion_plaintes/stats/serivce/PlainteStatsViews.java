@@ -0,0 +1,136 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns mv_plainte_stats_daily, the per-day materialized view behind the zone
+ * performance, anomaly, trending category and detailed stats queries of
+ * PlainteRepository.
+ *
+ * The view is created at startup if missing and refreshed CONCURRENTLY, so
+ * readers keep the previous contents during a refresh. A refresh runs when
+ * stats.views.refresh-threshold complaint writes have accumulated or the data
+ * is older than stats.views.max-age-seconds, whichever comes first, and on demand.
+ */
+@Component
+public class PlainteStatsViews {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteStatsViews.class);
+
+    // Unknown values are stored as "" so that the unique index covers every row
+    private static final String CREATE_VIEW = """
+        CREATE MATERIALIZED VIEW IF NOT EXISTS mv_plainte_stats_daily AS
+        SELECT CAST(p.date_soumission AS date) AS jour,
+               COALESCE(p.zone, '') AS zone,
+               COALESCE(c.nom, '') AS categorie,
+               COALESCE(p.statut, '') AS statut,
+               COUNT(*) AS nombre,
+               COUNT(CASE WHEN p.priorite >= 15 THEN 1 END) AS haute_priorite,
+               SUM(COALESCE(p.priorite, 5)) AS somme_priorite,
+               SUM(EXTRACT(EPOCH FROM p.date_soumission)) AS somme_epoch,
+               MIN(p.date_soumission) AS premiere,
+               MAX(p.date_soumission) AS derniere
+        FROM plainte p
+        LEFT JOIN categorie c ON p.categorie_id = c.id
+        WHERE p.date_soumission IS NOT NULL
+        GROUP BY 1, 2, 3, 4""";
+
+    // REFRESH ... CONCURRENTLY needs a unique index over plain columns
+    private static final String CREATE_INDEX = """
+        CREATE UNIQUE INDEX IF NOT EXISTS uk_mv_plainte_stats_daily
+        ON mv_plainte_stats_daily (jour, zone, categorie, statut)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long refreshThreshold;
+    private final Duration maxAge;
+
+    private final AtomicLong pendingChanges = new AtomicLong();
+    private volatile LocalDateTime refreshedAt;
+    private volatile long lastRefreshMs;
+
+    public PlainteStatsViews(JdbcTemplate jdbcTemplate,
+                             @Value("${stats.views.refresh-threshold:200}") long refreshThreshold,
+                             @Value("${stats.views.max-age-seconds:900}") long maxAgeSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshThreshold = refreshThreshold;
+        this.maxAge = Duration.ofSeconds(maxAgeSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        try {
+            jdbcTemplate.execute(CREATE_VIEW);
+            jdbcTemplate.execute(CREATE_INDEX);
+            refresh();
+        } catch (Exception e) {
+            logger.error("Unable to create stats materialized view: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlainteEvent(PlainteEvent event) {
+        pendingChanges.incrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${stats.views.check-ms:60000}")
+    public void refreshIfStale() {
+        if (refreshedAt == null) {
+            return;
+        }
+        boolean tooOld = Duration.between(refreshedAt, LocalDateTime.now()).compareTo(maxAge) >= 0;
+        if (pendingChanges.get() >= refreshThreshold || (tooOld && pendingChanges.get() > 0)) {
+            try {
+                refresh();
+            } catch (Exception e) {
+                logger.error("Scheduled refresh of stats materialized view failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Refreshes the view now; concurrent callers wait for the refresh in progress.
+     */
+    public synchronized void refresh() {
+        long start = System.currentTimeMillis();
+        LocalDateTime asOf = LocalDateTime.now();
+        long changes = pendingChanges.get();
+        jdbcTemplate.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY mv_plainte_stats_daily");
+        // Writes made during the refresh may or may not be in it: keep counting them
+        pendingChanges.addAndGet(-changes);
+        refreshedAt = asOf;
+        lastRefreshMs = System.currentTimeMillis() - start;
+        logger.info("Stats materialized view refreshed in {} ms ({} changes)", lastRefreshMs, changes);
+    }
+
+    public boolean isLoaded() {
+        return refreshedAt != null;
+    }
+
+    /**
+     * Freshness metadata returned alongside the rows read from the view.
+     */
+    public Map<String, Object> freshness() {
+        LocalDateTime at = refreshedAt;
+        Map<String, Object> freshness = new HashMap<>();
+        freshness.put("refreshed_at", at);
+        freshness.put("age_seconds", at != null ? Duration.between(at, LocalDateTime.now()).getSeconds() : null);
+        freshness.put("pending_changes", pendingChanges.get());
+        freshness.put("last_refresh_ms", lastRefreshMs);
+        return freshness;
+    }
+}
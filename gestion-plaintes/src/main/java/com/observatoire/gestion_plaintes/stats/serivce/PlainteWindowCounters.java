@@ -0,0 +1,195 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trailing-window complaint counts per (zone, catégorie), split by priority
+ * band, for the "last N hours" endpoints. Each key keeps two rings: one bucket
+ * per minute over the last few hours and one per hour over stats.window.days.
+ * A write touches one bucket of each; a query sums at most a few hundred
+ * minute buckets and one hour bucket per hour of the window.
+ *
+ * Windows up to two hours are exact to the minute. Beyond that the oldest
+ * partial hour is left out: the window starts at the first whole hour.
+ */
+@Component
+public class PlainteWindowCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlainteWindowCounters.class);
+
+    // Priority bands, as in PlainteRepository.countByZoneAndPriority
+    private static final int LOW = 0, MEDIUM = 1, HIGH = 2, BANDS = 3;
+    private static final int MINUTE_SLOTS = 180;
+    private static final int EXACT_MINUTES = 120;
+
+    /**
+     * Complaints of one (zone, catégorie) in a window; null stands for an unknown value.
+     */
+    public record WindowCount(String zone, String categorie, long count, long low, long medium, long high) {}
+
+    private record Key(String zone, String categorie) {}
+
+    private final PlainteRepository plainteRepository;
+    private final int hourSlots;
+
+    private final Map<Key, Rings> rings = new HashMap<>();
+    private volatile boolean loaded = false;
+
+    public PlainteWindowCounters(PlainteRepository plainteRepository,
+                                 @Value("${stats.window.days:30}") int days) {
+        this.plainteRepository = plainteRepository;
+        this.hourSlots = days * 24 + 1;
+    }
+
+    /**
+     * A ring of slots, each holding one count per priority band; slot ids are epoch minutes or hours.
+     */
+    private static final class Ring {
+        final long[] ids;
+        final int[] counts;
+
+        Ring(int slots) {
+            ids = new long[slots];
+            counts = new int[slots * BANDS];
+            Arrays.fill(ids, Long.MIN_VALUE);
+        }
+
+        void add(long id, int band, int delta) {
+            int i = (int) Math.floorMod(id, (long) ids.length);
+            if (ids[i] != id) {
+                if (ids[i] > id) {
+                    return; // older than the ring
+                }
+                ids[i] = id;
+                Arrays.fill(counts, i * BANDS, i * BANDS + BANDS, 0);
+            }
+            counts[i * BANDS + band] = Math.max(0, counts[i * BANDS + band] + delta);
+        }
+
+        void sum(long fromId, long toId, long[] totals) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] >= fromId && ids[i] <= toId) {
+                    for (int b = 0; b < BANDS; b++) {
+                        totals[b] += counts[i * BANDS + b];
+                    }
+                }
+            }
+        }
+
+        long newest() {
+            return Arrays.stream(ids).max().orElse(Long.MIN_VALUE);
+        }
+    }
+
+    private final class Rings {
+        final Ring minutes = new Ring(MINUTE_SLOTS);
+        final Ring hours = new Ring(hourSlots);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        try {
+            rings.clear();
+            int indexed = 0;
+            LocalDateTime since = LocalDateTime.now().minusHours(hourSlots);
+            for (PlainteSnapshot p : plainteRepository.findSnapshotsSince(since)) {
+                if (apply(p, 1)) indexed++;
+            }
+            loaded = true;
+            logger.info("Window counters loaded: {} complaints, {} zone/category keys", indexed, rings.size());
+        } catch (Exception e) {
+            logger.error("Unable to load window counters: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPlainteEvent(PlainteEvent event) {
+        if (event.getPrevious() != null) {
+            apply(event.getPrevious(), -1);
+        }
+        if (event.getCurrent() != null) {
+            apply(event.getCurrent(), 1);
+        }
+    }
+
+    /**
+     * Drops the keys with nothing left in the hour ring.
+     */
+    @Scheduled(fixedDelay = 3_600_000)
+    public synchronized void sweep() {
+        long oldest = epochMinutes(LocalDateTime.now()) / 60 - hourSlots;
+        rings.values().removeIf(r -> r.hours.newest() < oldest);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public Duration getMaxWindow() {
+        return Duration.ofHours(hourSlots - 1);
+    }
+
+    /**
+     * Counts per (zone, catégorie) over the trailing window, optionally for one zone;
+     * keys with nothing in the window are left out.
+     */
+    public synchronized List<WindowCount> counts(Duration window, String zone) {
+        long now = epochMinutes(LocalDateTime.now());
+        long start = now - window.toMinutes();
+        List<WindowCount> result = new ArrayList<>();
+        for (Map.Entry<Key, Rings> e : rings.entrySet()) {
+            if (zone != null && !zone.equals(e.getKey().zone())) continue;
+            long[] totals = new long[BANDS];
+            if (window.toMinutes() <= EXACT_MINUTES) {
+                e.getValue().minutes.sum(start, now, totals);
+            } else {
+                // Minutes since the start of the hour two hours back, whole hours before that
+                long minuteCut = Math.floorDiv(now - EXACT_MINUTES, 60) * 60;
+                e.getValue().minutes.sum(Math.max(start, minuteCut), now, totals);
+                e.getValue().hours.sum(Math.floorDiv(start + 59, 60), minuteCut / 60 - 1, totals);
+            }
+            long count = totals[LOW] + totals[MEDIUM] + totals[HIGH];
+            if (count > 0) {
+                result.add(new WindowCount(e.getKey().zone(), e.getKey().categorie(),
+                        count, totals[LOW], totals[MEDIUM], totals[HIGH]));
+            }
+        }
+        return result;
+    }
+
+    private boolean apply(PlainteSnapshot p, int delta) {
+        if (p.getDateSoumission() == null) {
+            return false;
+        }
+        int priorite = p.getPriorite() != null ? p.getPriorite() : 0;
+        int band = priorite >= 15 ? HIGH : priorite >= 8 ? MEDIUM : LOW;
+        long minute = epochMinutes(p.getDateSoumission());
+        Rings r = rings.computeIfAbsent(new Key(p.getZone(), p.getCategorie()), k -> new Rings());
+        r.minutes.add(minute, band, delta);
+        r.hours.add(Math.floorDiv(minute, 60), band, delta);
+        return true;
+    }
+
+    private static long epochMinutes(LocalDateTime t) {
+        return Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+}
@@ -0,0 +1,176 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.model.PlainteStatutHistorique;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+import com.observatoire.gestion_plaintes.repository.PlainteStatutHistoriqueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes plainte_statut_historique on every status change and keeps, per day
+ * of change, zone and catégorie, a DurationSketch of the time from submission
+ * to the first EN_COURS and to the first RESOLUE. Quantiles over a period merge
+ * the daily sketches, so they never read the log; it is only replayed at startup.
+ *
+ * The history of a complaint submitted before the log was started is unknown,
+ * so its changes are logged but never count as a first arrival. The start is
+ * stored once as a row of plainteId 0, and the complaints submitted before it
+ * get a marker row; later startups find that row and mark nothing.
+ */
+@Service
+public class ResolutionTimeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResolutionTimeService.class);
+
+    private static final List<StatutPlainte> TRACKED = List.of(StatutPlainte.EN_COURS, StatutPlainte.RESOLUE);
+    // No complaint has this id: its row holds the start of the log
+    private static final long LOG_START_ID = 0L;
+
+    private record Key(LocalDate day, String zone, String categorie, StatutPlainte statut) {}
+
+    private final PlainteStatutHistoriqueRepository historiqueRepository;
+    private final double relativeError;
+
+    private final Map<Key, DurationSketch> sketches = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    public ResolutionTimeService(PlainteStatutHistoriqueRepository historiqueRepository,
+                                 @Value("${stats.resolution-time.relative-error:0.01}") double relativeError) {
+        this.historiqueRepository = historiqueRepository;
+        this.relativeError = relativeError;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        try {
+            long start = System.currentTimeMillis();
+            sketches.clear();
+            startLog();
+            List<Object[]> rows = historiqueRepository.findFirstArrivals(TRACKED);
+            for (Object[] r : rows) {
+                record((String) r[0], (String) r[1], (StatutPlainte) r[2], (LocalDateTime) r[3], (LocalDateTime) r[4]);
+            }
+            loaded = true;
+            logger.info("Resolution time sketches loaded: {} transitions, {} sketches in {} ms",
+                    rows.size(), sketches.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Unable to load resolution time sketches: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the transition in the transaction of the status change; the sketches
+     * only take it once that transaction has committed.
+     */
+    @EventListener
+    @Transactional
+    public void onPlainteEvent(PlainteEvent event) {
+        if (event.getType() != PlainteEvent.Type.STATUS_CHANGED) {
+            return;
+        }
+        PlainteSnapshot previous = event.getPrevious();
+        PlainteSnapshot current = event.getCurrent();
+        if (current.getStatut() == null || Objects.equals(previous.getStatut(), current.getStatut())) {
+            return;
+        }
+
+        boolean premiere = !historiqueRepository.existsByPlainteIdAndNouveauStatut(current.getId(), current.getStatut())
+                && !historiqueRepository.existsByPlainteIdAndAncienStatutIsNullAndPremiereFalse(current.getId());
+        PlainteStatutHistorique h = historiqueRepository.save(new PlainteStatutHistorique(
+                current.getId(), current.getZone(), current.getCategorie(), previous.getStatut(),
+                current.getStatut(), current.getDateSoumission(), event.getOccurredAt(), premiere));
+
+        if (!premiere || !TRACKED.contains(h.getNouveauStatut()) || h.getDateSoumission() == null) {
+            return;
+        }
+        Runnable apply = () -> record(h.getZone(), h.getCategorie(), h.getNouveauStatut(),
+                h.getDateSoumission(), h.getDateChangement());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Marks the complaints older than the log, once. The start row is written last, so a
+     * startup interrupted in between marks the remaining complaints against the same start.
+     */
+    private void startLog() {
+        if (!historiqueRepository.findByPlainteIdOrderByDateChangementAsc(LOG_START_ID).isEmpty()) {
+            return;
+        }
+        // Changes may predate the start row on tables written before it existed
+        LocalDateTime debut = historiqueRepository.findFirstDateChangement();
+        if (debut == null) {
+            debut = LocalDateTime.now();
+        }
+        int markers = historiqueRepository.insertMarkers(debut);
+        historiqueRepository.save(new PlainteStatutHistorique(
+                LOG_START_ID, null, null, null, StatutPlainte.SOUMISE, null, debut, false));
+        logger.info("Status history started at {}: {} existing complaints marked", debut, markers);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public List<PlainteStatutHistorique> historique(Long plainteId) {
+        return historiqueRepository.findByPlainteIdOrderByDateChangementAsc(plainteId);
+    }
+
+    /**
+     * Merged sketches for status changes made on the days of [from, to], per tracked status;
+     * a null zone or catégorie means any.
+     */
+    public Map<StatutPlainte, DurationSketch> sketches(LocalDate from, LocalDate to, String zone, String categorie) {
+        Map<StatutPlainte, DurationSketch> merged = new EnumMap<>(StatutPlainte.class);
+        for (StatutPlainte statut : TRACKED) {
+            merged.put(statut, new DurationSketch(relativeError));
+        }
+        sketches.forEach((key, sketch) -> {
+            if (key.day().isBefore(from) || key.day().isAfter(to)) return;
+            if (zone != null && !zone.equalsIgnoreCase(key.zone())) return;
+            if (categorie != null && !categorie.equalsIgnoreCase(key.categorie())) return;
+            DurationSketch target = merged.get(key.statut());
+            synchronized (sketch) {
+                target.mergeFrom(sketch);
+            }
+        });
+        return merged;
+    }
+
+    private void record(String zone, String categorie, StatutPlainte statut,
+                        LocalDateTime dateSoumission, LocalDateTime dateChangement) {
+        double minutes = Math.max(0, Duration.between(dateSoumission, dateChangement).toSeconds() / 60.0);
+        DurationSketch sketch = sketches.computeIfAbsent(
+                new Key(dateChangement.toLocalDate(), zone, categorie, statut),
+                k -> new DurationSketch(relativeError));
+        synchronized (sketch) {
+            sketch.add(minutes);
+        }
+    }
+}
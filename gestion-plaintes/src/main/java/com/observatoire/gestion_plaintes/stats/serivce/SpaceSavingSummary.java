@@ -0,0 +1,165 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Space-Saving summary of the most frequent keys of a stream, in at most
+ * capacity counters. A new key past capacity takes over the smallest counter,
+ * inheriting its count as error, so every count is an overestimate by at most
+ * its error. An untracked key was seen at most floor() times: the largest count
+ * evicted so far is kept, so removals that free counters never lower it. While
+ * fewer than capacity keys are seen, counts are exact. Summaries merge into one
+ * of the same capacity with the errors added up. Not thread-safe.
+ */
+public class SpaceSavingSummary {
+
+    /**
+     * A tracked key: true count in [count - error, count].
+     */
+    public record Entry(String key, long count, long error) {
+        public long guaranteed() {
+            return count - error;
+        }
+    }
+
+    private final int capacity;
+    // key -> [count, error]
+    private final Map<String, long[]> counters;
+    private long total;
+    // Largest count of a key no longer tracked
+    private long maxEvicted;
+
+    public SpaceSavingSummary(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String key) {
+        long[] c = counters.get(key);
+        if (c != null) {
+            c[0]++;
+        } else {
+            long floor = floor();
+            if (counters.size() >= capacity) {
+                Map.Entry<String, long[]> min = minEntry();
+                counters.remove(min.getKey());
+                maxEvicted = Math.max(maxEvicted, min.getValue()[0]);
+            }
+            counters.put(key, new long[]{floor + 1, floor});
+        }
+        total++;
+    }
+
+    /**
+     * Takes back one occurrence, for a complaint deleted or moved to another key.
+     * An untracked key counted at most the floor, so there is nothing to undo. A counter
+     * dropping to 0 is freed; the floor stays, as evicted keys may still come back.
+     */
+    public void remove(String key) {
+        total = Math.max(0, total - 1);
+        long[] c = counters.get(key);
+        if (c == null) {
+            return;
+        }
+        if (--c[0] <= 0) {
+            counters.remove(key);
+        } else {
+            c[1] = Math.min(c[1], c[0]);
+        }
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isEmpty() {
+        return total == 0 && counters.isEmpty();
+    }
+
+    /**
+     * Largest count an untracked key can have: the largest count evicted so far,
+     * or the smallest counter while every counter is taken.
+     */
+    public long floor() {
+        return counters.size() < capacity ? maxEvicted : Math.max(maxEvicted, minEntry().getValue()[0]);
+    }
+
+    /**
+     * Upper bound of the error on any count.
+     */
+    public long maxError() {
+        return counters.values().stream().mapToLong(c -> c[1]).max().orElse(0);
+    }
+
+    /**
+     * The k largest counts, ties by key.
+     */
+    public List<Entry> top(int k) {
+        return counters.entrySet().stream()
+                .map(e -> new Entry(e.getKey(), e.getValue()[0], e.getValue()[1]))
+                .sorted(Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::key))
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * One summary for the union of the streams. A key missing from a full part may
+     * have been seen up to that part's floor, which is added to both its count and error.
+     * A key left out of the result was seen at most its summed count, and a key absent
+     * from every part at most the summed floors: the larger becomes the merged floor.
+     */
+    public static SpaceSavingSummary merge(Collection<SpaceSavingSummary> parts, int capacity) {
+        Set<String> keys = new HashSet<>();
+        parts.forEach(p -> keys.addAll(p.counters.keySet()));
+
+        Map<String, long[]> acc = new HashMap<>(keys.size() * 2);
+        long total = 0;
+        long floors = 0;
+        for (SpaceSavingSummary part : parts) {
+            long floor = part.floor();
+            floors += floor;
+            for (String key : keys) {
+                long[] c = part.counters.get(key);
+                long[] a = acc.computeIfAbsent(key, k -> new long[2]);
+                if (c != null) {
+                    a[0] += c[0];
+                    a[1] += c[1];
+                } else {
+                    a[0] += floor;
+                    a[1] += floor;
+                }
+            }
+            total += part.total;
+        }
+
+        SpaceSavingSummary merged = new SpaceSavingSummary(capacity);
+        List<Map.Entry<String, long[]>> sorted = acc.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed())
+                .collect(Collectors.toList());
+        sorted.stream().limit(capacity).forEach(e -> merged.counters.put(e.getKey(), e.getValue()));
+        merged.maxEvicted = sorted.size() > capacity ? Math.max(floors, sorted.get(capacity).getValue()[0]) : floors;
+        merged.total = total;
+        return merged;
+    }
+
+    private Map.Entry<String, long[]> minEntry() {
+        Map.Entry<String, long[]> min = null;
+        for (Map.Entry<String, long[]> e : counters.entrySet()) {
+            if (min == null || e.getValue()[0] < min.getValue()[0]) {
+                min = e;
+            }
+        }
+        return min;
+    }
+}
@@ -10,6 +10,7 @@ import com.observatoire.gestion_plaintes.stats.DTOs.TrendStats.TrendStats;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface StatistiquesService {
 
@@ -24,5 +25,6 @@ public interface StatistiquesService {
     List<HoraireStats> getVariationHoraire();
     CommuneStatsResponse getCommuneStats(LocalDateTime since);
     List<ResolutionRate> getTauxResolutionOptional(LocalDateTime from, LocalDateTime to);
+    Map<String, Object> getDashboard(LocalDate referenceDate);
 
 }
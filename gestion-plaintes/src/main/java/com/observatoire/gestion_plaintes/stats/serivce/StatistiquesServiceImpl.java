@@ -1,5 +1,6 @@
 package com.observatoire.gestion_plaintes.stats.serivce;
 
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
 import com.observatoire.gestion_plaintes.repository.PlainteRepository;
 import com.observatoire.gestion_plaintes.stats.DTOs.CommuneStats;
 import com.observatoire.gestion_plaintes.stats.DTOs.CommuneStatsResponse;
@@ -9,8 +10,10 @@ import com.observatoire.gestion_plaintes.stats.DTOs.HoraireStats;
 import com.observatoire.gestion_plaintes.stats.DTOs.ResolutionRate;
 import com.observatoire.gestion_plaintes.stats.DTOs.TrendStats.TrendStats;
 import com.observatoire.gestion_plaintes.stats.DTOs.TrendStats.ZoneCategoryTrend;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,7 +21,14 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,15 +36,131 @@ public class StatistiquesServiceImpl implements StatistiquesService {
 
     private static final Logger logger = LoggerFactory.getLogger(StatistiquesServiceImpl.class);
     private final PlainteRepository plainteRepository;
+    private final PlainteRollupService rollupService;
+    private final PlainteStatsCube statsCube;
+    private final PlainteStatsBucketCache bucketCache;
+    private final PlainteHeavyHitters heavyHitters;
     private static final double MAX_PERCENTAGE_CHANGE = 200.0;
 
-    public StatistiquesServiceImpl(PlainteRepository plainteRepository) {
+    /**
+     * Where a section reads its (zone, catégorie, statut) totals from.
+     */
+    @FunctionalInterface
+    private interface RowSource {
+        List<PlainteRollupService.Row> totals(LocalDateTime from, LocalDateTime to);
+    }
+
+    // Dashboard sections run here; daemon threads so a stuck query never blocks shutdown
+    private final ExecutorService dashboardExecutor = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "stats-dashboard");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${stats.dashboard.timeout-ms:2000}")
+    private long dashboardTimeoutMs;
+
+    public StatistiquesServiceImpl(PlainteRepository plainteRepository, PlainteRollupService rollupService,
+                                   PlainteStatsCube statsCube, PlainteStatsBucketCache bucketCache,
+                                   PlainteHeavyHitters heavyHitters) {
         this.plainteRepository = plainteRepository;
+        this.rollupService = rollupService;
+        this.statsCube = statsCube;
+        this.bucketCache = bucketCache;
+        this.heavyHitters = heavyHitters;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dashboardExecutor.shutdownNow();
+    }
+
+    /**
+     * All the dashboard sections for referenceDate. The 60 days they cover are read
+     * once, as per-day totals, and every section is computed from that snapshot; the
+     * hourly histogram is fetched alongside. Sections not ready within
+     * stats.dashboard.timeout-ms are left out and listed under missing_sections.
+     */
+    @Override
+    public Map<String, Object> getDashboard(LocalDate referenceDate) {
+        LocalDateTime end = referenceDate.atTime(23, 59, 59);
+        LocalDateTime start = referenceDate.minusDays(30).atStartOfDay();
+        LocalDateTime prevEnd = referenceDate.minusDays(31).atTime(23, 59, 59);
+        LocalDateTime prevStart = referenceDate.minusDays(60).atStartOfDay();
+        LocalDateTime trendStart = referenceDate.minusDays(7).atStartOfDay();
+
+        CompletableFuture<RowSource> snapshot = CompletableFuture.supplyAsync(
+                () -> daySnapshot(referenceDate.minusDays(60), referenceDate), dashboardExecutor);
+        CompletableFuture<List<HoraireStats>> horaire = CompletableFuture.supplyAsync(
+                this::getVariationHoraire, dashboardExecutor);
+
+        Map<String, CompletableFuture<?>> sections = new LinkedHashMap<>();
+        sections.put("frequency", section(snapshot, source -> frequency(source, start, end)));
+        sections.put("previousTotal", section(snapshot, source -> frequency(source, prevStart, prevEnd)
+                .getCounts().stream().mapToLong(ZoneCategoryCount::getCount).sum()));
+        sections.put("trends", section(snapshot, source -> trends(source, trendStart, end)));
+        sections.put("communes", section(snapshot, source -> topCommunes(source, referenceDate)));
+        sections.put("resolution", section(snapshot, source -> resolution(source, start, end)));
+        sections.put("horaire", horaire);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(dashboardTimeoutMs);
+        Map<String, Object> dashboard = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<?>> e : sections.entrySet()) {
+            Object value = await(e.getKey(), e.getValue(), deadline);
+            if (value != null) {
+                dashboard.put(e.getKey(), value);
+            } else {
+                missing.add(e.getKey());
+            }
+        }
+        if (!missing.isEmpty()) {
+            dashboard.put("missing_sections", missing);
+        }
+        return dashboard;
+    }
+
+    private <T> CompletableFuture<T> section(CompletableFuture<RowSource> snapshot, Function<RowSource, T> compute) {
+        return snapshot.thenApplyAsync(compute, dashboardExecutor);
+    }
+
+    private Object await(String name, CompletableFuture<?> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Dashboard section '{}' not ready within {} ms", name, dashboardTimeoutMs);
+        } catch (ExecutionException e) {
+            logger.error("Dashboard section '{}' failed: {}", name, e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Per-day totals of [first, last] read in one pass, served as a RowSource.
+     * Only whole-day ranges are asked of it: a range takes the days its bounds fall on.
+     */
+    private RowSource daySnapshot(LocalDate first, LocalDate last) {
+        Map<LocalDate, List<PlainteRollupService.Row>> days = bucketCache.totalsByDay(first, last);
+        return (from, to) -> {
+            List<PlainteRollupService.Row> rows = new ArrayList<>();
+            days.forEach((day, dayRows) -> {
+                if (!day.isBefore(from.toLocalDate()) && !day.isAfter(to.toLocalDate())) {
+                    rows.addAll(dayRows);
+                }
+            });
+            return rows;
+        };
     }
 
     @Override
     public FrequencyStats getFrequencyStats(LocalDateTime from, LocalDateTime to) {
-        List<Object[]> raw = plainteRepository.countByZoneAndCategorie(from, to);
+        return frequency(this::totals, from, to);
+    }
+
+    private FrequencyStats frequency(RowSource source, LocalDateTime from, LocalDateTime to) {
+        List<Object[]> raw = countByZoneAndCategorie(source, from, to);
         List<ZoneCategoryCount> counts = raw.stream()
                 .map(r -> new ZoneCategoryCount(
                         (String) r[0],
@@ -51,6 +177,10 @@ public class StatistiquesServiceImpl implements StatistiquesService {
 
     @Override
     public TrendStats getTrendStats(LocalDateTime startCurrent, LocalDateTime endCurrent) {
+        return trends(this::totals, startCurrent, endCurrent);
+    }
+
+    private TrendStats trends(RowSource source, LocalDateTime startCurrent, LocalDateTime endCurrent) {
         // 1) Determine window length (inclusive days)
         long days = ChronoUnit.DAYS.between(
                 startCurrent.toLocalDate(), endCurrent.toLocalDate()) + 1;
@@ -60,8 +190,8 @@ public class StatistiquesServiceImpl implements StatistiquesService {
         LocalDateTime startPrev = startCurrent.minusDays(days);
 
         // 3) Fetch raw counts
-        List<Object[]> rawCurrent = plainteRepository.countByZoneAndCategorie(startCurrent, endCurrent);
-        List<Object[]> rawPrev = plainteRepository.countByZoneAndCategorie(startPrev, endPrev);
+        List<Object[]> rawCurrent = countByZoneAndCategorie(source, startCurrent, endCurrent);
+        List<Object[]> rawPrev = countByZoneAndCategorie(source, startPrev, endPrev);
 
         // 4) Normalize null→"Inconnu", cast counts to long
         Function<Object[], Object[]> normalize = r -> new Object[] {
@@ -144,14 +274,27 @@ public class StatistiquesServiceImpl implements StatistiquesService {
     }
 
     public List<CommuneStats> getTopCommunes(LocalDate referenceDate) {
+        LocalDate start = referenceDate.minusDays(6);
+        if (heavyHitters.isLoaded() && heavyHitters.covers(start)) {
+            return heavyHitters.summary(PlainteHeavyHitters.Dimension.COMMUNE, start, referenceDate).top(5).stream()
+                    .map(e -> new CommuneStats(e.key(), e.count()))
+                    .collect(Collectors.toList());
+        }
+        return topCommunes(this::totals, referenceDate);
+    }
+
+    private List<CommuneStats> topCommunes(RowSource source, LocalDate referenceDate) {
         LocalDateTime end = referenceDate.atTime(23, 59, 59);
         LocalDateTime start = referenceDate.minusDays(6).atStartOfDay();
 
-        return plainteRepository.findTopCommunes(start, end).stream()
-                .map(arr -> new CommuneStats(
-                        (String) arr[0],
-                        ((Number) arr[1]).longValue()
-                ))
+        Map<String, Long> byZone = new HashMap<>();
+        for (PlainteRollupService.Row r : source.totals(start, end)) {
+            byZone.merge(r.zone() != null ? r.zone() : "Inconnu", r.nombre(), Long::sum);
+        }
+        return byZone.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(5)
+                .map(e -> new CommuneStats(e.getKey(), e.getValue()))
                 .collect(Collectors.toList());
     }
 
@@ -178,10 +321,14 @@ public class StatistiquesServiceImpl implements StatistiquesService {
      */
     @Override
     public List<ResolutionRate> getTauxResolution(LocalDateTime from, LocalDateTime to) {
+        return resolution(this::totals, from, to);
+    }
+
+    private List<ResolutionRate> resolution(RowSource source, LocalDateTime from, LocalDateTime to) {
         logger.info("Calculating resolution rates from {} to {}", from, to);
 
         try {
-            List<Object[]> rawData = plainteRepository.calculateTauxResolution(from, to);
+            List<Object[]> rawData = tauxResolution(source.totals(from, to), false);
             logger.debug("Retrieved {} raw resolution records", rawData.size());
 
             return rawData.stream()
@@ -230,11 +377,16 @@ public class StatistiquesServiceImpl implements StatistiquesService {
     }
 
     public List<HoraireStats> getVariationHoraire() {
-        Map<Integer, Long> rawCounts = plainteRepository.countByHeure().stream()
-                .collect(Collectors.toMap(
-                        arr -> ((Number) arr[0]).intValue(),
-                        arr -> ((Number) arr[1]).longValue()
-                ));
+        Map<Integer, Long> rawCounts = new HashMap<>();
+        if (statsCube.isLoaded()) {
+            long[] byHour = statsCube.countByHour();
+            for (int h = 0; h < byHour.length; h++) {
+                rawCounts.put(h, byHour[h]);
+            }
+        } else {
+            plainteRepository.countByHeure().forEach(arr ->
+                    rawCounts.put(((Number) arr[0]).intValue(), ((Number) arr[1]).longValue()));
+        }
 
         Map<String, Long> result = new LinkedHashMap<>();
         for (int h = 0; h < 24; h += 2) {
@@ -256,11 +408,11 @@ public class StatistiquesServiceImpl implements StatistiquesService {
 
             if (from == null && to == null) {
                 // Utiliser la nouvelle méthode sans filtre date
-                rawData = plainteRepository.calculateTauxResolutionOptionalDates(null, null);
+                rawData = tauxResolution(totals(null, null), true);
                 logger.info("Using global resolution calculation (no date filter)");
             } else {
                 // Utiliser la méthode existante avec filtres
-                rawData = plainteRepository.calculateTauxResolution(from, to);
+                rawData = tauxResolution(totals(from, to), false);
                 logger.info("Using date-filtered resolution calculation");
             }
 
@@ -305,4 +457,53 @@ public class StatistiquesServiceImpl implements StatistiquesService {
             return Collections.emptyList();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Whole days from the bucket cache, the rest from the in-memory cube once it is
+     * loaded or from the hourly rollup before that; both count the partial edges exactly.
+     */
+    private List<PlainteRollupService.Row> totals(LocalDateTime from, LocalDateTime to) {
+        return bucketCache.totals(from, to);
+    }
+
+    /**
+     * Rows shaped like PlainteRepository.countByZoneAndCategorie, [zone, catégorie, count],
+     * summed from the pre-aggregates. Complaints without a category are left out, as in the join.
+     */
+    private List<Object[]> countByZoneAndCategorie(RowSource source, LocalDateTime from, LocalDateTime to) {
+        Map<List<String>, Long> counts = new HashMap<>();
+        for (PlainteRollupService.Row r : source.totals(from, to)) {
+            if (r.categorie() == null) continue;
+            counts.merge(Arrays.asList(r.zone(), r.categorie()), r.nombre(), Long::sum);
+        }
+        return counts.entrySet().stream()
+                .map(e -> new Object[]{e.getKey().get(0), e.getKey().get(1), e.getValue()})
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Rows shaped like PlainteRepository.calculateTauxResolution, [zone, catégorie, total, resolues, taux],
+     * summed from the pre-aggregates.
+     */
+    private List<Object[]> tauxResolution(List<PlainteRollupService.Row> rows, boolean knownCategoriesOnly) {
+        Map<List<String>, long[]> totals = new HashMap<>();
+        for (PlainteRollupService.Row r : rows) {
+            if (knownCategoriesOnly && r.categorie() == null) continue;
+            long[] t = totals.computeIfAbsent(Arrays.asList(
+                    r.zone() != null ? r.zone() : "Zone inconnue",
+                    r.categorie() != null ? r.categorie() : "Catégorie inconnue"), k -> new long[2]);
+            t[0] += r.nombre();
+            if (r.statut() == StatutPlainte.RESOLUE) {
+                t[1] += r.nombre();
+            }
+        }
+        return totals.entrySet().stream()
+                .map(e -> new Object[]{
+                        e.getKey().get(0),
+                        e.getKey().get(1),
+                        e.getValue()[0],
+                        e.getValue()[1],
+                        Math.round(e.getValue()[1] * 1000.0 / e.getValue()[0]) / 10.0})
+                .collect(Collectors.toList());
+    }
+}
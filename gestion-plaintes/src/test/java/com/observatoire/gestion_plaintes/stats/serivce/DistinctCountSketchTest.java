@@ -0,0 +1,101 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DistinctCountSketchTest {
+
+    // Second byte of toBytes()
+    private static final byte SPARSE = 0, DENSE = 1;
+
+    @Test
+    void estimatesStayWithinThreeStandardErrors() {
+        for (int n : new int[]{10, 100, 1_000, 10_000, 100_000, 1_000_000}) {
+            DistinctCountSketch sketch = new DistinctCountSketch(12);
+            for (long v = 0; v < n; v++) {
+                sketch.add(v);
+            }
+            long estimate = sketch.estimate();
+            assertTrue(Math.abs(estimate - n) <= Math.max(1, 3 * sketch.getStandardError() * n),
+                    n + " estimated as " + estimate);
+        }
+    }
+
+    @Test
+    void addingAValueTwiceChangesNothing() {
+        DistinctCountSketch sketch = new DistinctCountSketch(12);
+        for (int i = 0; i < 3; i++) {
+            sketch.add("Dakar");
+            sketch.add("Thies");
+        }
+        assertEquals(2, sketch.estimate());
+    }
+
+    @Test
+    void switchesToDenseRegistersOnceSparseWouldBeLarger() {
+        DistinctCountSketch sketch = new DistinctCountSketch(8);
+        long v = 0;
+        while (sketch.toBytes()[1] == SPARSE) {
+            sketch.add(v++);
+        }
+        byte[] dense = sketch.toBytes();
+
+        // 256 registers: the sparse form outgrows them past 64 entries
+        assertEquals(DENSE, dense[1]);
+        assertEquals(2 + 256, dense.length);
+        assertTrue(v > 64, "dense after " + v + " values");
+        assertTrue(Math.abs(sketch.estimate() - v) <= 3 * sketch.getStandardError() * v);
+    }
+
+    @Test
+    void roundTripsThroughBytesInBothForms() {
+        DistinctCountSketch sparse = new DistinctCountSketch(12);
+        DistinctCountSketch dense = new DistinctCountSketch(12);
+        for (long v = 0; v < 50; v++) {
+            sparse.add(v);
+        }
+        for (long v = 0; v < 20_000; v++) {
+            dense.add(v);
+        }
+        assertEquals(SPARSE, sparse.toBytes()[1]);
+        assertEquals(DENSE, dense.toBytes()[1]);
+
+        for (DistinctCountSketch sketch : new DistinctCountSketch[]{sparse, dense}) {
+            DistinctCountSketch copy = DistinctCountSketch.fromBytes(sketch.toBytes());
+            assertEquals(12, copy.getPrecision());
+            assertEquals(sketch.estimate(), copy.estimate());
+            assertArrayEquals(sketch.toBytes(), copy.toBytes());
+        }
+
+        // A sketch read back keeps accepting values
+        DistinctCountSketch copy = DistinctCountSketch.fromBytes(sparse.toBytes());
+        for (long v = 50; v < 20_000; v++) {
+            copy.add(v);
+        }
+        assertArrayEquals(dense.toBytes(), copy.toBytes());
+    }
+
+    @Test
+    void mergeEqualsTheSketchOfTheUnion() {
+        DistinctCountSketch union = new DistinctCountSketch(12);
+        DistinctCountSketch merged = new DistinctCountSketch(12);
+        // One small sparse part, one dense part, and an overlap between them
+        long[][] parts = {{0, 300}, {200, 40_000}, {39_000, 39_500}};
+        for (long[] range : parts) {
+            DistinctCountSketch part = new DistinctCountSketch(12);
+            for (long v = range[0]; v < range[1]; v++) {
+                part.add(v);
+                union.add(v);
+            }
+            merged.mergeFrom(part);
+        }
+
+        assertEquals(union.estimate(), merged.estimate());
+        assertTrue(Math.abs(merged.estimate() - 40_000) <= 3 * merged.getStandardError() * 40_000);
+        assertThrows(IllegalArgumentException.class, () -> merged.mergeFrom(new DistinctCountSketch(10)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DurationSketchTest {
+
+    private static final double[] QUANTILES = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99};
+
+    @Test
+    void quantilesStayWithinTheRelativeError() {
+        // Log-normal durations from about a minute to several months
+        Random random = new Random(42);
+        double[] values = new double[50_000];
+        DurationSketch sketch = new DurationSketch(0.01);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + Math.exp(6 + 2.5 * random.nextGaussian());
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, sketch.getCount());
+        for (double q : QUANTILES) {
+            double expected = values[(int) Math.ceil(q * values.length) - 1];
+            double actual = sketch.quantile(q);
+            assertTrue(Math.abs(actual - expected) <= 0.01 * expected,
+                    "q" + q + ": " + actual + " vs " + expected);
+        }
+    }
+
+    @Test
+    void mergingEqualsAddingEverythingToOneSketch() {
+        Random random = new Random(7);
+        DurationSketch all = new DurationSketch(0.02);
+        DurationSketch merged = new DurationSketch(0.02);
+        for (int part = 0; part < 10; part++) {
+            DurationSketch daily = new DurationSketch(0.02);
+            for (int i = 0; i < 1_000; i++) {
+                double minutes = random.nextDouble() * 10_000;
+                daily.add(minutes);
+                all.add(minutes);
+            }
+            merged.mergeFrom(daily);
+        }
+
+        assertEquals(all.getCount(), merged.getCount());
+        for (double q : QUANTILES) {
+            assertEquals(all.quantile(q), merged.quantile(q));
+        }
+    }
+
+    @Test
+    void subMinuteDurationsCountAsZero() {
+        DurationSketch sketch = new DurationSketch(0.01);
+        sketch.add(0);
+        sketch.add(0.5);
+        sketch.add(120);
+
+        assertEquals(0, sketch.quantile(0.5));
+        assertEquals(120, sketch.quantile(1), 120 * 0.01);
+    }
+
+    @Test
+    void emptySketchHasNoQuantile() {
+        assertTrue(Double.isNaN(new DurationSketch(0.01).quantile(0.5)));
+    }
+}
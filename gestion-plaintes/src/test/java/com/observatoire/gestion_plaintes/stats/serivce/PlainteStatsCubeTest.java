@@ -0,0 +1,209 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import com.observatoire.gestion_plaintes.events.PlainteEvent;
+import com.observatoire.gestion_plaintes.events.PlainteSnapshot;
+import com.observatoire.gestion_plaintes.model.StatutPlainte;
+import com.observatoire.gestion_plaintes.repository.PlainteRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PlainteStatsCubeTest {
+
+    // A Monday
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 4);
+
+    private final PlainteRepository repository = mock(PlainteRepository.class);
+    private final PlainteStatsCube cube = new PlainteStatsCube(repository, event -> {});
+
+    @Test
+    void packsEveryFieldOfACellWithoutOverlap() {
+        // Every statut plus unknown, at the last quarter of the day, under several zones and categories
+        StatutPlainte[] statuts = {null, StatutPlainte.SOUMISE, StatutPlainte.EN_COURS,
+                StatutPlainte.RESOLUE, StatutPlainte.REJETEE};
+        long id = 0;
+        for (int z = 0; z < 40; z++) {
+            for (int c = 0; c < 12; c++) {
+                for (StatutPlainte statut : statuts) {
+                    create(++id, "zone-" + z, "cat-" + c, statut, z + c, DAY.atTime(23, 59));
+                }
+            }
+        }
+
+        List<PlainteRollupService.Row> rows = cube.totals(DAY.atStartOfDay(), endOf(DAY));
+        assertEquals(40 * 12 * statuts.length, rows.size());
+        for (PlainteRollupService.Row r : rows) {
+            int z = Integer.parseInt(r.zone().substring(5));
+            int c = Integer.parseInt(r.categorie().substring(4));
+            assertEquals(1, r.nombre());
+            assertEquals(z + c, r.sommePriorite());
+        }
+        for (StatutPlainte statut : statuts) {
+            assertEquals(40 * 12, rows.stream().filter(r -> r.statut() == statut).count());
+        }
+        assertEquals(id, cube.countByHour()[23]);
+    }
+
+    @Test
+    void nullZoneAndCategoryStayUnknown() {
+        create(1, null, null, StatutPlainte.SOUMISE, 4, DAY.atTime(9, 0));
+
+        PlainteRollupService.Row row = cube.totals(null, null).get(0);
+        assertEquals(new PlainteRollupService.Row(null, null, StatutPlainte.SOUMISE, 1, 4), row);
+    }
+
+    @Test
+    void totalsOfAlignedRangesComeFromTheCellsOnly() {
+        create(1, "Dakar", "VOL", StatutPlainte.SOUMISE, 10, DAY.atTime(8, 0));
+        create(2, "Dakar", "VOL", StatutPlainte.SOUMISE, 5, DAY.atTime(8, 14));
+        create(3, "Dakar", "VOL", StatutPlainte.SOUMISE, 1, DAY.atTime(8, 15));
+        create(4, "Thies", "BRUIT", StatutPlainte.RESOLUE, 2, DAY.plusDays(1).atTime(0, 0));
+
+        assertEquals(Map.of("Dakar|VOL|SOUMISE", 2L),
+                counts(cube.totals(DAY.atTime(8, 0), DAY.atTime(8, 14, 59, 999_999_000))));
+        assertEquals(Map.of("Dakar|VOL|SOUMISE", 3L, "Thies|BRUIT|RESOLUE", 1L),
+                counts(cube.totals(DAY.atStartOfDay(), endOf(DAY.plusDays(1)))));
+        verify(repository, never()).countByZoneCategorieAndStatut(any(), any());
+    }
+
+    @Test
+    void partialQuarterHoursAtTheEdgesAreCountedInTheDatabase() {
+        // 10:05 and 12:50 lie in quarters that are only partly inside [10:07, 12:52]
+        create(1, "Dakar", "VOL", StatutPlainte.SOUMISE, 3, DAY.atTime(10, 5));
+        create(2, "Dakar", "VOL", StatutPlainte.SOUMISE, 3, DAY.atTime(10, 15));
+        create(3, "Dakar", "VOL", StatutPlainte.SOUMISE, 3, DAY.atTime(12, 44));
+        create(4, "Dakar", "VOL", StatutPlainte.SOUMISE, 3, DAY.atTime(12, 50));
+
+        LocalDateTime from = DAY.atTime(10, 7);
+        LocalDateTime to = DAY.atTime(12, 52);
+        LocalDateTime headEnd = DAY.atTime(10, 15).minus(1, ChronoUnit.MICROS);
+        LocalDateTime tailStart = DAY.atTime(12, 45);
+        when(repository.countByZoneCategorieAndStatut(from, headEnd)).thenReturn(List.of());
+        when(repository.countByZoneCategorieAndStatut(tailStart, to)).thenReturn(List.<Object[]>of(
+                new Object[]{"Dakar", "VOL", StatutPlainte.SOUMISE, 1L, 3L}));
+
+        List<PlainteRollupService.Row> rows = cube.totals(from, to);
+
+        assertEquals(List.of(new PlainteRollupService.Row("Dakar", "VOL", StatutPlainte.SOUMISE, 3, 9)), rows);
+        verify(repository).countByZoneCategorieAndStatut(from, headEnd);
+        verify(repository).countByZoneCategorieAndStatut(tailStart, to);
+    }
+
+    @Test
+    void rangesWithinOneQuarterHourAreCountedInTheDatabase() {
+        LocalDateTime from = DAY.atTime(10, 1);
+        LocalDateTime to = DAY.atTime(10, 9);
+        when(repository.countByZoneCategorieAndStatut(from, to)).thenReturn(List.<Object[]>of(
+                new Object[]{"Dakar", null, null, 2L, null}));
+
+        assertEquals(List.of(new PlainteRollupService.Row("Dakar", null, null, 2, 0)), cube.totals(from, to));
+    }
+
+    @Test
+    void updatesMoveAComplaintBetweenCells() {
+        PlainteSnapshot soumise = snapshot(1, "Dakar", "VOL", StatutPlainte.SOUMISE, 7, DAY.atTime(14, 30));
+        PlainteSnapshot resolue = snapshot(1, "Dakar", "VOL", StatutPlainte.RESOLUE, 7, DAY.atTime(14, 30));
+        cube.onPlainteEvent(PlainteEvent.created(soumise));
+        cube.onPlainteEvent(new PlainteEvent(PlainteEvent.Type.STATUS_CHANGED, soumise, resolue));
+
+        assertEquals(Map.of("Dakar|VOL|RESOLUE", 1L), counts(cube.totals(null, null)));
+
+        cube.onPlainteEvent(PlainteEvent.deleted(resolue));
+        assertTrue(cube.totals(null, null).isEmpty());
+        assertEquals(0, cube.countByHour()[14]);
+    }
+
+    @Test
+    void hourOfWeekFollowsTheDayAndHour() {
+        create(1, "Dakar", "VOL", StatutPlainte.SOUMISE, 1, DAY.atTime(0, 0));
+        create(2, "Dakar", "VOL", StatutPlainte.SOUMISE, 1, DAY.plusDays(6).atTime(23, 45));
+        create(3, "Thies", "VOL", StatutPlainte.SOUMISE, 1, DAY.plusDays(2).atTime(13, 20));
+
+        long[] all = cube.countByHourOfWeek(null, null, null, null);
+        assertEquals(1, all[0]);
+        assertEquals(1, all[6 * 24 + 23]);
+        assertEquals(1, all[2 * 24 + 13]);
+
+        long[] dakar = cube.countByHourOfWeek(DAY, DAY.plusDays(6), "Dakar", "VOL");
+        assertEquals(2, Arrays.stream(dakar).sum());
+        assertEquals(0, dakar[2 * 24 + 13]);
+    }
+
+    @Test
+    void seriesDownSampleTheQuarterHours() {
+        create(1, "Dakar", "VOL", StatutPlainte.SOUMISE, 1, DAY.atTime(0, 10));
+        create(2, "Dakar", "BRUIT", StatutPlainte.SOUMISE, 1, DAY.atTime(0, 50));
+        create(3, "Thies", "VOL", StatutPlainte.RESOLUE, 1, DAY.atTime(2, 0));
+
+        Map<String, long[]> byZone = cube.series(DAY.atStartOfDay(), 60, 3,
+                DAY.atStartOfDay(), DAY.atTime(2, 59), PlainteStatsCube.SeriesGroup.ZONE, null, null, null);
+        assertArrayEquals(new long[]{2, 0, 0}, byZone.get("Dakar"));
+        assertArrayEquals(new long[]{0, 0, 1}, byZone.get("Thies"));
+
+        Map<String, long[]> vol = cube.series(DAY.atStartOfDay(), 15, 12,
+                DAY.atStartOfDay(), DAY.atTime(2, 59), PlainteStatsCube.SeriesGroup.NONE, null, "VOL", null);
+        long[] expected = new long[12];
+        expected[0] = 1;
+        expected[8] = 1;
+        assertArrayEquals(expected, vol.get("total"));
+    }
+
+    @Test
+    void eventsDuringAReloadAreReplayedOnTheNewContents() {
+        PlainteSnapshot soumise = snapshot(1, "Dakar", "VOL", StatutPlainte.SOUMISE, 5, DAY.atTime(9, 0));
+        PlainteSnapshot resolue = snapshot(1, "Dakar", "VOL", StatutPlainte.RESOLUE, 5, DAY.atTime(9, 0));
+        PlainteSnapshot deleted = snapshot(2, "Thies", "BRUIT", StatutPlainte.SOUMISE, 2, DAY.atTime(10, 0));
+        PlainteSnapshot created = snapshot(3, "Thies", "VOL", StatutPlainte.EN_COURS, 1, DAY.atTime(11, 0));
+        when(repository.findAllSnapshots()).thenAnswer(invocation -> {
+            // Committed while the query runs: the status change is already visible to it,
+            // the deletion and the creation are not
+            cube.onPlainteEvent(new PlainteEvent(PlainteEvent.Type.STATUS_CHANGED, soumise, resolue));
+            cube.onPlainteEvent(PlainteEvent.deleted(deleted));
+            cube.onPlainteEvent(PlainteEvent.created(created));
+            return List.of(resolue, deleted);
+        });
+
+        cube.reload();
+
+        assertEquals(Map.of("Dakar|VOL|RESOLUE", 1L, "Thies|VOL|EN_COURS", 1L), counts(cube.totals(null, null)));
+
+        cube.onPlainteEvent(PlainteEvent.deleted(created));
+        assertEquals(Map.of("Dakar|VOL|RESOLUE", 1L), counts(cube.totals(null, null)));
+    }
+
+    private void create(long id, String zone, String categorie, StatutPlainte statut, int priorite,
+                        LocalDateTime date) {
+        cube.onPlainteEvent(PlainteEvent.created(snapshot(id, zone, categorie, statut, priorite, date)));
+    }
+
+    private static PlainteSnapshot snapshot(long id, String zone, String categorie, StatutPlainte statut,
+                                            int priorite, LocalDateTime date) {
+        return new PlainteSnapshot(id, zone, categorie, statut, priorite, date, null, null, null);
+    }
+
+    private static LocalDateTime endOf(LocalDate day) {
+        return day.atTime(23, 59, 59, 999_999_000);
+    }
+
+    private static Map<String, Long> counts(List<PlainteRollupService.Row> rows) {
+        return rows.stream().collect(Collectors.toMap(
+                r -> r.zone() + "|" + r.categorie() + "|" + Objects.toString(r.statut()),
+                PlainteRollupService.Row::nombre, Long::sum));
+    }
+}
@@ -0,0 +1,115 @@
+package com.observatoire.gestion_plaintes.stats.serivce;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingSummaryTest {
+
+    private static final int KEYS = 200;
+
+    @Test
+    void countsAreExactBelowCapacity() {
+        SpaceSavingSummary summary = new SpaceSavingSummary(3);
+        summary.add("a");
+        summary.add("b");
+        summary.add("a");
+
+        assertEquals(List.of(new SpaceSavingSummary.Entry("a", 2, 0), new SpaceSavingSummary.Entry("b", 1, 0)),
+                summary.top(3));
+        assertEquals(0, summary.floor());
+        assertEquals(3, summary.getTotal());
+    }
+
+    @Test
+    void boundsHoldUnderAddsAndRemoves() {
+        Random random = new Random(1);
+        SpaceSavingSummary summary = new SpaceSavingSummary(20);
+        Map<String, Long> exact = new HashMap<>();
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            if (!added.isEmpty() && random.nextInt(4) == 0) {
+                String key = added.remove(random.nextInt(added.size()));
+                summary.remove(key);
+                exact.merge(key, -1L, Long::sum);
+            } else {
+                String key = skewedKey(random);
+                summary.add(key);
+                added.add(key);
+                exact.merge(key, 1L, Long::sum);
+            }
+            if (i % 500 == 0) {
+                assertWithinBounds(summary, exact);
+            }
+        }
+        assertWithinBounds(summary, exact);
+        assertEquals(added.size(), summary.getTotal());
+    }
+
+    @Test
+    void freeingACounterDoesNotLowerTheFloor() {
+        SpaceSavingSummary summary = new SpaceSavingSummary(2);
+        for (int i = 0; i < 5; i++) {
+            summary.add("a");
+        }
+        summary.add("b");
+        summary.add("c");
+        // c took over b: count 2, error 1, and an untracked key may have been seen as often as c
+        assertEquals(2, summary.floor());
+        summary.remove("c");
+        summary.remove("c");
+
+        // b was seen once and is no longer tracked
+        assertEquals(1, summary.floor());
+        summary.add("b");
+        assertEquals(new SpaceSavingSummary.Entry("b", 2, 1), summary.top(2).get(1));
+    }
+
+    @Test
+    void mergeKeepsTheBoundsOfTheUnion() {
+        Random random = new Random(3);
+        List<SpaceSavingSummary> parts = new ArrayList<>();
+        Map<String, Long> exact = new HashMap<>();
+        for (int p = 0; p < 7; p++) {
+            SpaceSavingSummary part = new SpaceSavingSummary(15);
+            for (int i = 0; i < 3_000; i++) {
+                String key = skewedKey(random);
+                part.add(key);
+                exact.merge(key, 1L, Long::sum);
+            }
+            parts.add(part);
+        }
+
+        SpaceSavingSummary merged = SpaceSavingSummary.merge(parts, 10);
+
+        assertEquals(7 * 3_000, merged.getTotal());
+        assertEquals(10, merged.top(20).size());
+        assertWithinBounds(merged, exact);
+        assertEquals("k0", merged.top(1).get(0).key());
+    }
+
+    private static String skewedKey(Random random) {
+        // Roughly Zipfian: a few keys dominate, a long tail is seen rarely
+        return "k" + (int) Math.floor(Math.pow(KEYS, random.nextDouble()) - 1);
+    }
+
+    private static void assertWithinBounds(SpaceSavingSummary summary, Map<String, Long> exact) {
+        Map<String, SpaceSavingSummary.Entry> tracked = new HashMap<>();
+        summary.top(summary.getCapacity()).forEach(e -> tracked.put(e.key(), e));
+        exact.forEach((key, count) -> {
+            SpaceSavingSummary.Entry e = tracked.get(key);
+            if (e != null) {
+                assertTrue(e.guaranteed() <= count && count <= e.count(), key + ": " + count + " vs " + e);
+            } else {
+                assertTrue(count <= summary.floor(), key + ": " + count + " above floor " + summary.floor());
+            }
+        });
+    }
+}
@@ -149,6 +149,32 @@ async def classify_plainte(input: PlainteIn):
         logging.error(f"Erreur de classification : {str(e)}")
         raise HTTPException(status_code=500, detail="Echech de la classification")
     
+@app.post("/classify-batch",
+        response_model=List[PlainteOut],
+        summary="Classifie plusieurs plaintes en un seul appel",
+        responses = {
+            200: {"description": "Classifications dans l'ordre des plaintes reçues"},
+            500: {"description": "Erreur interne du modèle NLP"}
+    })
+async def classify_plaintes_batch(inputs: List[PlainteIn]):
+    try :
+        # nlp.pipe traite les textes par lots, bien plus rapide que nlp() appelé en boucle
+        resultats = []
+        for input, doc in zip(inputs, nlp.pipe(p.description for p in inputs)):
+            categorie = max(doc.cats, key=doc.cats.get)
+            priorite_details = calculer_priorite_avancee(doc, input.localisation)
+            resultats.append({
+                "categorie": categorie,
+                "scores": doc.cats,
+                "priorite": priorite_details["score"],
+                "niveau_urgence": priorite_details["niveau_urgence"],
+                "details_calcul": priorite_details["details"]
+            })
+        return resultats
+    except Exception as e :
+        logging.error(f"Erreur de classification par lot : {str(e)}")
+        raise HTTPException(status_code=500, detail="Echech de la classification")
+
 @app.post("/generate-summary", response_model=SummaryResponse, tags=["Summary Generation"])
 async def generate_summary(request: SummaryRequest):
     """Generate intelligent summary from multiple complaints"""